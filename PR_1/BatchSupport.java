@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Спільне для неінтерактивних запусків Практичної №1 (WarehouseBenchmark, MassSimulation, EventSimulation):
+ * - параметри командного рядка у вигляді --name value;
+ * - статистика вимірювань (середнє, похибка, перцентилі) і звіт у JSON у форматі JMH.
+ */
+public final class BatchSupport {
+
+    private BatchSupport() {
+    }
+
+    // Результат одного бенчмарку з конкретними параметрами
+    static class Result {
+        final String benchmark;
+        final Map<String, String> params;
+        final double[] samples;
+
+        Result(String benchmark, Map<String, String> params, double[] samples) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.samples = samples;
+        }
+
+        double mean() {
+            return Arrays.stream(samples).average().orElse(Double.NaN);
+        }
+
+        // Півширина довірчого інтервалу 99.9% (нормальне наближення, як scoreError у JMH)
+        double error() {
+            int n = samples.length;
+            if (n < 2) return Double.NaN;
+            double m = mean(), ss = 0;
+            for (double v : samples) ss += (v - m) * (v - m);
+            return 3.291 * Math.sqrt(ss / (n - 1)) / Math.sqrt(n);
+        }
+
+        double percentile(double p) {
+            double[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+        }
+    }
+
+    // ----------------------------- Параметри -----------------------------
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Очікувався параметр --name, отримано: " + args[i]);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для параметра " + args[i]);
+            opts.put(args[i].substring(2), args[i + 1]);
+        }
+        return opts;
+    }
+
+    // --warmup і --iterations: без виміряних ітерацій середнє й перцентилі не мають сенсу
+    static int warmup(Map<String, String> opts, int byDefault) {
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", String.valueOf(byDefault)));
+        if (warmup < 0) throw new IllegalArgumentException("Кількість warm-up ітерацій має бути ≥ 0: " + warmup);
+        return warmup;
+    }
+
+    static int iterations(Map<String, String> opts, int byDefault) {
+        int iterations = Integer.parseInt(opts.getOrDefault("iterations", String.valueOf(byDefault)));
+        if (iterations < 1) throw new IllegalArgumentException("Кількість виміряних ітерацій має бути ≥ 1: " + iterations);
+        return iterations;
+    }
+
+    static int[] ints(String csv) {
+        return Arrays.stream(csv.split(",")).mapToInt(v -> Integer.parseInt(v.trim())).toArray();
+    }
+
+    // ----------------------------- Звіт -----------------------------
+
+    // mode і unit - як у JMH, напр. "thrpt" і "ops/s"
+    static void writeJson(Path file, String mode, String unit, List<Result> results, int warmup, int iterations) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file))) {
+            pw.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                pw.println("    {");
+                pw.printf("        \"benchmark\" : %s,%n", json(r.benchmark));
+                pw.printf("        \"mode\" : %s,%n", json(mode));
+                pw.printf("        \"threads\" : %s,%n", r.params.getOrDefault("threads", "1"));
+                pw.printf("        \"warmupIterations\" : %d,%n", warmup);
+                pw.printf("        \"measurementIterations\" : %d,%n", iterations);
+                StringJoiner params = new StringJoiner(", ", "{ ", " }");
+                for (Map.Entry<String, String> e : r.params.entrySet()) params.add(json(e.getKey()) + " : " + json(e.getValue()));
+                pw.printf("        \"params\" : %s,%n", params);
+                pw.println("        \"primaryMetric\" : {");
+                pw.printf("            \"score\" : %s,%n", number(r.mean()));
+                pw.printf("            \"scoreError\" : %s,%n", number(r.error()));
+                pw.printf("            \"scoreUnit\" : %s,%n", json(unit));
+                pw.printf("            \"scorePercentiles\" : { \"0.0\" : %s, \"50.0\" : %s, \"90.0\" : %s, \"99.0\" : %s, \"100.0\" : %s },%n",
+                        number(r.percentile(0)), number(r.percentile(50)), number(r.percentile(90)), number(r.percentile(99)), number(r.percentile(100)));
+                StringJoiner raw = new StringJoiner(", ", "[ [ ", " ] ]");
+                for (double v : r.samples) raw.add(number(v));
+                pw.printf("            \"rawData\" : %s%n", raw);
+                pw.println("        }");
+                pw.println(i < results.size() - 1 ? "    }," : "    }");
+            }
+            pw.println("]");
+        }
+    }
+
+    // NaN і нескінченності - рядком, як у JMH: голі NaN/Infinity у JSON недійсні
+    private static String number(double v) {
+        return Double.isFinite(v) ? String.format(Locale.ROOT, "%.3f", v) : "\"" + v + "\"";
+    }
+
+    private static String json(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,133 @@
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Годинник симуляції: час рахується від старту за реальним годинником з множником
+ * simSecondsPerRealSecond; правила розкладу - за секундою доби (спільні з EventSimulation).
+ */
+class Clock {
+    private final long startMillis;
+    private final int simSecondsPerRealSecond;
+    private final int startSecondOfDay;
+
+    /* Абсолютна секунда симуляції наступної межі комендантської години (00:00 або 05:00).
+       Хто першим побачив, що час її пройшов, зсуває її CAS-ом на наступну межу й оголошує перехід -
+       тож кожен перехід оголошується рівно один раз без блокувань */
+    private final AtomicLong nextCurfewTransition;
+
+    public Clock(int simSecondsPerRealSecond, LocalTime startTimeOfDay) {
+        this.startMillis = System.currentTimeMillis();
+        this.simSecondsPerRealSecond = simSecondsPerRealSecond;
+        this.startSecondOfDay = startTimeOfDay.toSecondOfDay();
+        this.nextCurfewTransition = new AtomicLong(Math.min(
+                secondsUntil(startSecondOfDay, CURFEW_START), secondsUntil(startSecondOfDay, CURFEW_END)));
+    }
+
+    /** Поля незмінні, тож читання часу - без блокувань і без створення об'єктів */
+    public long simulatedSecondsSinceStart() {
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        return elapsedMillis * simSecondsPerRealSecond / 1000L;
+    }
+
+    /** Секунда доби для моменту totalSimSec від старту */
+    int secondOfDay(long totalSimSec) {
+        return (int) ((startSecondOfDay + totalSimSec) % 86400L);
+    }
+
+    public int secondOfDay() {
+        return secondOfDay(simulatedSecondsSinceStart());
+    }
+
+    /** Поточний час симуляції; заодно оголошує переходи комендантської години, що вже настали */
+    public long tick() {
+        long totalSimSec = simulatedSecondsSinceStart();
+        announceCurfewTransitions(totalSimSec);
+        return totalSimSec;
+    }
+
+    /** Формує рядок "Day d HH:mm:ss" та оголошує комендантську годину */
+    public String formatted() {
+        return format(tick());
+    }
+
+    /** Рядок "Day d HH:mm:ss" для моменту totalSimSec від старту (без LocalTime і DateTimeFormatter) */
+    public String format(long totalSimSec) {
+        int sod = secondOfDay(totalSimSec);
+        StringBuilder sb = new StringBuilder(20).append("Day ").append(totalSimSec / 86400L).append(' ');
+        appendTwoDigits(sb, sod / 3600).append(':');
+        appendTwoDigits(sb, sod / 60 % 60).append(':');
+        return appendTwoDigits(sb, sod % 60).toString();
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /** =================== Детектор переходу часу =================== */
+    private void announceCurfewTransitions(long totalSimSec) {
+        long next;
+        while ((next = nextCurfewTransition.get()) <= totalSimSec) {
+            int boundary = secondOfDay(next);
+            int following = boundary == CURFEW_START ? CURFEW_END : CURFEW_START;
+            if (nextCurfewTransition.compareAndSet(next, next + secondsUntil(boundary, following))) {
+                Logger.printAt(this, next, boundary == CURFEW_START
+                        ? "Настала комендантська година"
+                        : "Комендантська година закінчилася");
+            }
+        }
+    }
+
+    /**
+     * Реальні мілісекунди від секунди доби from до найближчої target (+1 мс, щоб прокинутися вже після межі).
+     * from - той самий знімок secondOfDay(), за яким перевірялось правило: якщо прочитати годинник
+     * ще раз, межа могла вже минути, і пауза вийшла б на цілу добу.
+     */
+    public long realMillisUntil(int fromSecondOfDay, int targetSecondOfDay) {
+        long simSeconds = secondsUntil(fromSecondOfDay, targetSecondOfDay);
+        return simSeconds * 1000L / simSecondsPerRealSecond + 1;
+    }
+
+    /** Мітка System.currentTimeMillis(), з якої simulatedSecondsSinceStart() >= totalSimSec */
+    public long realMillisAt(long totalSimSec) {
+        return startMillis + (totalSimSec * 1000L + simSecondsPerRealSecond - 1) / simSecondsPerRealSecond;
+    }
+
+    /* =================== Правила за секундою доби ===================
+       Спільні для годинника реального часу і дискретно-подієвої симуляції (EventSimulation) */
+    static final int SHOP_OPEN = 8 * 3600, SHOP_CLOSE = 20 * 3600;
+    static final int LUNCH_START = 12 * 3600, LUNCH_END = 13 * 3600;
+    static final int SUPPLIER_START = 7 * 3600, SUPPLIER_END = 19 * 3600;
+    static final int CURFEW_START = 0, CURFEW_END = 5 * 3600;
+
+    static boolean isShopOpenAt(int secondOfDay) {
+        return secondOfDay >= SHOP_OPEN && secondOfDay < SHOP_CLOSE;
+    }
+
+    static boolean isSupplierOnLunchAt(int secondOfDay) {
+        return secondOfDay >= LUNCH_START && secondOfDay < LUNCH_END;
+    }
+
+    static boolean isSupplierWorkingHoursAt(int secondOfDay) {
+        return secondOfDay >= SUPPLIER_START && secondOfDay < SUPPLIER_END;
+    }
+
+    static boolean isCurfewAt(int secondOfDay) {
+        return secondOfDay >= CURFEW_START && secondOfDay < CURFEW_END;
+    }
+
+    /** Усі межі розкладу за зростанням: на кожній змінюється стан магазину, постачальника чи ком. години */
+    static final int[] TRANSITIONS = {CURFEW_START, CURFEW_END, SUPPLIER_START, SHOP_OPEN, LUNCH_START, LUNCH_END, SUPPLIER_END, SHOP_CLOSE};
+
+    static int nextTransitionAfter(int secondOfDay) {
+        for (int boundary : TRANSITIONS) {
+            if (boundary > secondOfDay) return boundary;
+        }
+        return TRANSITIONS[0];
+    }
+
+    /** Скільки секунд від from до найближчого настання target (1..86400; межа в ту саму секунду - наступної доби) */
+    static long secondsUntil(int fromSecondOfDay, int targetSecondOfDay) {
+        int delta = Math.floorMod(targetSecondOfDay - fromSecondOfDay, 86400);
+        return delta == 0 ? 86400L : delta;
+    }
+}
@@ -0,0 +1,221 @@
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Дискретно-подієва симуляція складу.
+ *
+ * Main рухає симульований час через Thread.sleep і реальний годинник, тож доба симуляції
+ * триває 72 с реального часу, а результат щоразу інший. Тут час віртуальний: події лежать
+ * у черзі з пріоритетом за часом, і рушій одразу перескакує до наступної події.
+ * Рік симуляції рахується за мілісекунди, а з тим самим seed результат завжди однаковий
+ * (усі випадкові числа - з SplittableRandom від seed, рівні за часом події - у порядку планування).
+ *
+ * Правила ті самі, що й у Main (див. Clock.*At): магазин 08–20, постачальник 07–19 з обідом 12–13,
+ * комендантська година 00–05, покупець бере 1..3, постачальник привозить 3..7; паузи акторів -
+ * паузи з Main, перераховані у симульований час (1 с реального = 20 хв симуляції).
+ *
+ * Запуск:
+ *   java EventSimulation --days 365 --suppliers 1 --customers 1 --capacity 100 --seed 42 [--log true]
+ */
+public class EventSimulation {
+
+    private static final int SIM_SECONDS_PER_REAL_SECOND = 1200;
+    private static final int START_SECOND_OF_DAY = 8 * 3600; // як у Main - старт о 08:00
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    /** Пауза з Main (мс реального часу) у секундах симуляції */
+    static long sim(long realMillis) {
+        return realMillis * SIM_SECONDS_PER_REAL_SECOND / 1000;
+    }
+
+    /** Актор виконує крок у поточний момент і повертає, через скільки секунд симуляції його наступний крок */
+    interface Actor {
+        long step(EventSimulation sim);
+    }
+
+    private static final class Event {
+        final long time;
+        final long seq;
+        final Actor actor;
+
+        Event(long time, long seq, Actor actor) {
+            this.time = time;
+            this.seq = seq;
+            this.actor = actor;
+        }
+    }
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>(
+            (a, b) -> a.time != b.time ? Long.compare(a.time, b.time) : Long.compare(a.seq, b.seq));
+    private long now;       // секунди симуляції від старту
+    private long seq;
+    private long processed;
+
+    final Warehouse warehouse;
+    final MassSimulation.Stats stats = new MassSimulation.Stats();
+    final boolean log;
+
+    EventSimulation(Warehouse warehouse, boolean log) {
+        this.warehouse = warehouse;
+        this.log = log;
+    }
+
+    int secondOfDay() {
+        return (int) ((START_SECOND_OF_DAY + now) % 86400L);
+    }
+
+    void schedule(long delay, Actor actor) {
+        queue.add(new Event(now + delay, seq++, actor));
+    }
+
+    /** Обробляє всі події до моменту until (включно) */
+    void runUntil(long until) {
+        while (!queue.isEmpty() && queue.peek().time <= until) {
+            Event e = queue.poll();
+            now = e.time;
+            processed++;
+            schedule(e.actor.step(this), e.actor);
+        }
+        now = until;
+    }
+
+    void log(String message) {
+        if (log) {
+            System.out.printf("[Day %d %s] %s%n", now / 86400L, LocalTime.ofSecondOfDay(secondOfDay()).format(TIME_FMT), message);
+        }
+    }
+
+    /* ========================= Актори ========================= */
+
+    /** Як Customer з Main: пауза 1..2 с реального, потім спроба купити 1..3 товари */
+    static final class Customer implements Actor {
+        private final SplittableRandom rand;
+
+        Customer(SplittableRandom rand) {
+            this.rand = rand;
+        }
+
+        long firstDelay() {
+            return sim((1 + rand.nextInt(2)) * 1000L);
+        }
+
+        @Override
+        public long step(EventSimulation sim) {
+            int sod = sim.secondOfDay();
+            if (Clock.isCurfewAt(sod)) {
+                // ком. година: одразу до її кінця, далі звичайна пауза (як Customer з Main через SimScheduler)
+                return Clock.CURFEW_END - sod + firstDelay();
+            }
+            if (!Clock.isShopOpenAt(sod)) {
+                sim.stats.closedVisits.increment();
+                sim.log("Покупець прийшов → магазин зачинений");
+            } else {
+                int want = 1 + rand.nextInt(3);
+                int taken = sim.warehouse.removeProducts(want);
+                sim.stats.customerVisits.increment();
+                if (taken == 0) {
+                    sim.stats.stockOuts.increment();
+                    sim.log("Покупець прийшов → товарів немає");
+                } else {
+                    sim.stats.purchases.increment();
+                    sim.stats.itemsSold.add(taken);
+                    if (taken < want) sim.stats.partial.increment();
+                    sim.log(String.format("Покупець купив %,d → залишилось %,d/%,d",
+                            taken, sim.warehouse.getProductsCount(), sim.warehouse.getCapacity()));
+                }
+            }
+            return firstDelay();
+        }
+    }
+
+    /** Як Supplier з Main: у робочі години пауза 3..4 с реального, потім поставка 3..7 товарів */
+    static final class Supplier implements Actor {
+        private final SplittableRandom rand;
+        private boolean onTheWay;
+
+        Supplier(SplittableRandom rand) {
+            this.rand = rand;
+        }
+
+        @Override
+        public long step(EventSimulation sim) {
+            if (onTheWay) {
+                onTheWay = false;
+                int added = sim.warehouse.addProducts(3 + rand.nextInt(5));
+                if (added > 0) {
+                    sim.stats.deliveries.increment();
+                    sim.stats.itemsDelivered.add(added);
+                    sim.log(String.format("Постачальник привіз %,d (всього %,d/%,d)",
+                            added, sim.warehouse.getProductsCount(), sim.warehouse.getCapacity()));
+                } else {
+                    sim.stats.warehouseFull.increment();
+                    sim.log("Постачальник прийшов → склад повністю заповнений");
+                }
+            }
+
+            int sod = sim.secondOfDay();
+            if (Clock.isCurfewAt(sod)) {
+                return Clock.CURFEW_END - sod; // чекає кінця ком. години
+            }
+            if (!Clock.isSupplierWorkingHoursAt(sod)) {
+                sim.log("Постачальник не працює → неробочий час");
+                return sim(2000);
+            }
+            if (Clock.isSupplierOnLunchAt(sod)) {
+                sim.log("Постачальник на обіді");
+                return sim(1500 + rand.nextInt(1001));
+            }
+            onTheWay = true;
+            return sim((3 + rand.nextInt(2)) * 1000L);
+        }
+    }
+
+    /** Межі комендантської години як події рушія (00:00 і 05:00 кожної доби); з --log - ще й у журнал */
+    static final class CurfewTransitions implements Actor {
+        @Override
+        public long step(EventSimulation sim) {
+            int sod = sim.secondOfDay();
+            if (sod == Clock.CURFEW_START) {
+                sim.log("Настала комендантська година");
+                return Clock.CURFEW_END - Clock.CURFEW_START;
+            }
+            if (sod == Clock.CURFEW_END) sim.log("Комендантська година закінчилася");
+            return 86400L - sod + Clock.CURFEW_START;
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> opts = BatchSupport.parseOptions(args);
+
+        int days = Integer.parseInt(opts.getOrDefault("days", "365"));
+        int suppliers = Integer.parseInt(opts.getOrDefault("suppliers", "1"));
+        int customers = Integer.parseInt(opts.getOrDefault("customers", "1"));
+        int capacity = Integer.parseInt(opts.getOrDefault("capacity", "100"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+        boolean log = Boolean.parseBoolean(opts.getOrDefault("log", "false"));
+
+        long t0 = System.nanoTime();
+        EventSimulation sim = new EventSimulation(new Warehouse(capacity, 1, null, false), log);
+
+        SplittableRandom master = new SplittableRandom(seed);
+        for (int i = 0; i < suppliers; i++) sim.schedule(0, new Supplier(master.split()));
+        for (int i = 0; i < customers; i++) {
+            Customer c = new Customer(master.split());
+            sim.schedule(c.firstDelay(), c);
+        }
+        sim.schedule(Clock.secondsUntil(START_SECOND_OF_DAY, Clock.CURFEW_START), new CurfewTransitions());
+
+        sim.log(String.format("Старт симуляції: %,d постачальників, %,d покупців, місткість %,d, seed %d",
+                suppliers, customers, capacity, seed));
+        sim.runUntil(days * 86400L);
+        double realMillis = (System.nanoTime() - t0) / 1_000_000.0;
+
+        System.out.println("-".repeat(70));
+        System.out.printf("Симульовано %,d днів: %,d подій за %.3f мс реального часу (%,.0f подій/с)%n",
+                days, sim.processed, realMillis, sim.processed / (realMillis / 1000.0));
+        sim.stats.printSummary(sim.warehouse);
+    }
+}
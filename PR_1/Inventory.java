@@ -0,0 +1,21 @@
+/** Спільний інтерфейс складу - щоб порівнювати реалізації (див. WarehouseBenchmark) */
+interface Inventory {
+    /** Додає до amount товарів, скільки влізе; повертає, скільки додано */
+    int addProducts(int amount);
+
+    /** Забирає до desired товарів, скільки є; повертає, скільки забрано */
+    int removeProducts(int desired);
+
+    int getProductsCount();
+
+    int getCapacity();
+
+    /** Те саме від імені актора key (напр. номер покупця): мережа складів за ним обирає склад, один склад ключ ігнорує */
+    default int addProducts(int key, int amount) {
+        return addProducts(amount);
+    }
+
+    default int removeProducts(int key, int desired) {
+        return removeProducts(desired);
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронний журнал: актори лише кладуть подію (момент симуляції + текст) у кільцевий буфер,
+ * а форматує й друкує пачками окремий потік "Logger" - виклик не чекає ні на консоль, ні на інші потоки.
+ *
+ * Буфер - обмежена MPSC-черга без блокувань (слоти виділені наперед, номер "покоління" кожного
+ * слота в AtomicLongArray, місце займається CAS-ом на tail). Що робити, коли буфер повний:
+ *   BLOCK  - чекати на вільне місце (нічого не губиться; типово);
+ *   DROP   - відкинути повідомлення;
+ *   SAMPLE - пропустити кожне SAMPLE_RATE-те (воно чекає, як BLOCK), решту відкинути.
+ * Налаштування: -Dlogger.capacity=8192 -Dlogger.overflow=BLOCK|DROP|SAMPLE.
+ * Перед виходом треба викликати shutdown() - він дописує все, що лишилося в буфері.
+ */
+class Logger {
+    enum Overflow { BLOCK, DROP, SAMPLE }
+
+    private static final int SAMPLE_RATE = 16;
+    private static final int BATCH_LINES = 256;
+    private static final String SEPARATOR = "-".repeat(70);
+
+    private static final int capacity = Integer.highestOneBit(Math.max(2, Integer.getInteger("logger.capacity", 8192)));
+    private static final int mask = capacity - 1;
+    private static final Overflow overflow = Overflow.valueOf(System.getProperty("logger.overflow", "BLOCK").toUpperCase());
+
+    // слот i вільний для запису позиції pos, коли sequences[i] == pos, і готовий до читання, коли == pos + 1
+    private static final AtomicLongArray sequences = new AtomicLongArray(capacity);
+    private static final long[] simSeconds = new long[capacity];
+    private static final Clock[] clocks = new Clock[capacity];       // null - рядок без часу (роздільник)
+    private static final String[] messages = new String[capacity];
+
+    private static final AtomicLong tail = new AtomicLong();
+    private static long head;                                        // потік Logger, після його зупинки - під LOCK
+    private static final AtomicLong overflows = new AtomicLong();
+    private static final LongAdder dropped = new LongAdder();
+
+    private static final AtomicBoolean closed = new AtomicBoolean();
+    private static volatile boolean consumerDone;                    // потік Logger завершився, буфер дописують самі producer-и
+    private static final Object LOCK = new Object();
+    private static final Thread consumer;
+
+    static {
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+        consumer = new Thread(Logger::drainLoop, "Logger");
+        consumer.setDaemon(true);
+        consumer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Logger::shutdown, "Logger-flush")); // напр. Ctrl+C
+    }
+
+    public static void print(Clock clock, String message) {
+        // tick() - на потоці того, хто пише, щоб оголошення ком. години потрапили в журнал раніше за це повідомлення
+        publish(clock, clock.tick(), message);
+    }
+
+    /** Подія з явним моментом симуляції (без tick(), напр. самі оголошення ком. години) */
+    static void printAt(Clock clock, long simSecond, String message) {
+        publish(clock, simSecond, message);
+    }
+
+    public static void printSeparator() {
+        publish(null, 0, SEPARATOR);
+    }
+
+    /** Дописує буфер і зупиняє потік Logger; подальші виклики друкують одразу */
+    public static void shutdown() {
+        boolean first = !closed.getAndSet(true);
+        LockSupport.unpark(consumer);
+        boolean interrupted = false;
+        while (consumer.isAlive()) {                   // повторний виклик (напр. хук після main) теж чекає на дописування
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;                    // не кидаємо буфер напівдописаним
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (!first) return;
+        // хто перевірив closed ще до shutdown(), міг опублікувати слот уже після останнього drain потоку Logger
+        synchronized (LOCK) {
+            consumerDone = true;
+            drainLate();
+        }
+        long lost = dropped.sum();
+        if (lost > 0) System.out.printf("[Logger] відкинуто повідомлень через переповнення буфера: %,d%n", lost);
+        System.out.flush();
+    }
+
+    private static void publish(Clock clock, long simSecond, String message) {
+        if (consumerDone) {                            // до цього пишемо в буфер навіть після shutdown(), щоб не обігнати свої ж рядки
+            synchronized (LOCK) {
+                drainLate();                           // спершу те, що опубліковано раніше
+                System.out.println(clock == null ? message : line(new StringBuilder(), clock, simSecond, message));
+            }
+            return;
+        }
+        boolean waitForSpace = overflow == Overflow.BLOCK;
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+                pos = tail.get();
+            } else if (diff > 0) {
+                pos = tail.get();                      // слот уже зайняв інший потік
+            } else {
+                // буфер повний
+                if (!waitForSpace) {
+                    if (overflow == Overflow.DROP || overflows.incrementAndGet() % SAMPLE_RATE != 0) {
+                        dropped.increment();
+                        return;
+                    }
+                    waitForSpace = true;
+                }
+                if (consumerDone) {                    // потік Logger місце вже не звільнить - дописуємо буфер самі
+                    synchronized (LOCK) {
+                        drainLate();
+                    }
+                }
+                if (Thread.currentThread().isInterrupted()) Thread.yield(); // parkNanos з прапорцем переривання не чекає
+                else LockSupport.parkNanos(50_000);
+                pos = tail.get();
+            }
+        }
+        int idx = (int) (pos & mask);
+        simSeconds[idx] = simSecond;
+        clocks[idx] = clock;
+        messages[idx] = message;
+        sequences.set(idx, pos + 1);                   // публікація слота для потоку Logger
+        if (consumerDone) {                            // потік Logger уже зупинився і цей слот не побачить
+            synchronized (LOCK) {
+                drainLate();
+            }
+        }
+    }
+
+    private static void drainLoop() {
+        StringBuilder batch = new StringBuilder(BATCH_LINES * 64);
+        while (true) {
+            boolean stopping = closed.get();           // читаємо до drain: усе, що записано до shutdown(), буде дописано
+            int lines = drain(batch);
+            if (lines == 0) {
+                if (stopping) return;
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+    }
+
+    // Лише під LOCK і після зупинки потоку Logger
+    private static void drainLate() {
+        StringBuilder batch = new StringBuilder();
+        while (drain(batch) > 0) {
+        }
+    }
+
+    /** Забирає з буфера до BATCH_LINES подій і друкує їх одним записом */
+    private static int drain(StringBuilder batch) {
+        int lines = 0;
+        while (lines < BATCH_LINES) {
+            int idx = (int) (head & mask);
+            if (sequences.get(idx) != head + 1) break;
+            Clock clock = clocks[idx];
+            if (clock == null) batch.append(messages[idx]).append(System.lineSeparator());
+            else line(batch, clock, simSeconds[idx], messages[idx]).append(System.lineSeparator());
+            clocks[idx] = null;
+            messages[idx] = null;
+            sequences.set(idx, head + capacity);       // слот вільний для наступного кола
+            head++;
+            lines++;
+        }
+        if (lines > 0) {
+            System.out.print(batch);
+            System.out.flush();
+            batch.setLength(0);
+        }
+        return lines;
+    }
+
+    private static StringBuilder line(StringBuilder sb, Clock clock, long simSecond, String message) {
+        return sb.append('[').append(clock.format(simSecond)).append("] ").append(message);
+    }
+}
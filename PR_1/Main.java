@@ -1,9 +1,8 @@
 import java.time.Duration;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Random;
 import java.util.Scanner;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Симуляція постачання товарів
@@ -15,7 +14,7 @@ import java.util.concurrent.Semaphore;
  * - покупець приходить кожні 5..10 хв симуляції (1..2 с реального)
  * - постачальник кожні 15..20 хв симуляції (3..4 с реального)
  * - робочі години 08:00–20:00, обід постачальника 12:00–13:00
- * - Semaphore + Runnable + обробка помилок + коментарі
+ * - склад без блокувань (CAS-лічильники замість synchronized + Semaphore) + Runnable + обробка помилок + коментарі
  */
 public class Main {
 
@@ -49,10 +48,11 @@ public class Main {
         // створюємо годинник і склад
         Clock clock = new Clock(SIM_SECONDS_PER_REAL_SECOND, LocalTime.of(8, 0)); // початок симуляції 08:00
         Warehouse warehouse = new Warehouse(100, clock);
+        SimScheduler scheduler = new SimScheduler(clock);
 
         // створюємо потоки
-        Thread supplier = new Thread(new Supplier(warehouse, clock, random), "Постачальник");
-        Thread customer = new Thread(new Customer(warehouse, clock, random), "Покупець");
+        Thread supplier = new Thread(new Supplier(warehouse, clock, scheduler, random), "Постачальник");
+        Thread customer = new Thread(new Customer(warehouse, clock, scheduler, random), "Покупець");
 
         Logger.print(clock, "Старт симуляції");
         Logger.print(clock, String.format("Місткість складу: %d | Старт: %d товарів", 100, warehouse.getProductsCount()));
@@ -86,184 +86,48 @@ public class Main {
         Logger.print(clock, "Симуляція завершена");
         Logger.print(clock, String.format("На складі: %,d із %,d товарів", warehouse.getProductsCount(), warehouse.getCapacity()));
         Logger.print(clock, "Дякую за тестування!");
+        Logger.shutdown(); // дописати журнал до виходу
 
         scanner.close();
     }
 }
 
 
-/** ========================= Clock ========================= **/
-class Clock {
-    private final long startMillis;
-    private final int simSecondsPerRealSecond;
-    private final LocalTime startTimeOfDay;
-    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm:ss");
-
-    private LocalTime lastTime = null;
-
-    private boolean curfewStartedAnnounced = false;
-    private boolean curfewEndedAnnounced = false;
-    private long lastDayChecked = -1;
-
-    public Clock(int simSecondsPerRealSecond, LocalTime startTimeOfDay) {
-        this.startMillis = System.currentTimeMillis();
-        this.simSecondsPerRealSecond = simSecondsPerRealSecond;
-        this.startTimeOfDay = startTimeOfDay;
-    }
-
-    public synchronized long simulatedSecondsSinceStart() {
-        long elapsedMillis = System.currentTimeMillis() - startMillis;
-        return elapsedMillis * simSecondsPerRealSecond / 1000L;
-    }
-
-    /** Формує рядок та оголошує комендантську годину */
-    public synchronized String formatted() {
-
-        long totalSimSec = simulatedSecondsSinceStart();
-        long day = totalSimSec / 86400L;               // 24 * 60 * 60
-        long secondsOfDay = totalSimSec % 86400L;
-        LocalTime t = startTimeOfDay.plusSeconds(secondsOfDay);
-
-        /** =================== Перехід на новий день =================== */
-        if (day != lastDayChecked) {
-            curfewStartedAnnounced = false;
-            curfewEndedAnnounced = false;
-            lastDayChecked = day;
-        }
-
-        /** =================== Детектор переходу часу =================== */
-        if (lastTime != null) {
-
-            /* === Настала комендантська година (00:00) === */
-            if (!curfewStartedAnnounced &&
-                    lastTime.getHour() != 0 &&
-                    t.getHour() == 0 &&
-                    t.getMinute() == 0) {
-
-                Logger.print(this, "Настала комендантська година");
-                curfewStartedAnnounced = true;
-            }
-
-            /* === Комендантська година закінчилася (05:00) === */
-            if (!curfewEndedAnnounced &&
-                    lastTime.getHour() < 5 &&
-                    t.getHour() == 5 &&
-                    t.getMinute() == 0) {
-
-                Logger.print(this, "Комендантська година закінчилася");
-                curfewEndedAnnounced = true;
-            }
-        }
-
-        lastTime = t;
-
-        return String.format("Day %d %s", day, t.format(TIME_FMT));
-    }
-
-    public synchronized Clock.SimTime getSimTime() {
-        long totalSimSec = simulatedSecondsSinceStart();
-        long day = totalSimSec / 86400L;
-        long secondsOfDay = totalSimSec % 86400L;
-        LocalTime t = startTimeOfDay.plusSeconds(secondsOfDay);
-        return new Clock.SimTime(day, t);
-    }
-
-    public synchronized boolean isShopOpen() {
-        LocalTime t = getSimTime().time;
-        return !t.isBefore(LocalTime.of(8, 0)) && t.isBefore(LocalTime.of(20, 0));
-    }
-
-    public synchronized boolean isSupplierOnLunch() {
-        LocalTime t = getSimTime().time;
-        return !t.isBefore(LocalTime.of(12, 0)) && t.isBefore(LocalTime.of(13, 0));
-    }
-
-    public synchronized boolean isSupplierWorkingHours() {
-        LocalTime t = getSimTime().time;
-        return !t.isBefore(LocalTime.of(7, 0)) && t.isBefore(LocalTime.of(19, 0));
-    }
-
-    public synchronized boolean isCurfew() {
-        LocalTime t = getSimTime().time;
-        return !t.isBefore(LocalTime.of(0, 0)) && t.isBefore(LocalTime.of(5, 0));
-    }
-
-    public static class SimTime {
-        public final long day;
-        public final LocalTime time;
-
-        public SimTime(long day, LocalTime time) {
-            this.day = day;
-            this.time = time;
-        }
-    }
-}
-
-
-
-/** ========================= Logger ========================= **/
-class Logger {
-    public static synchronized void print(Clock clock, String message) {
-        System.out.printf("[%s] %s%n", clock.formatted(), message);
-    }
-
-    public static synchronized void printSeparator() {
-        System.out.println("-".repeat(70));
-    }
-}
-
-
-/** ========================= Warehouse ========================= **/
-class Warehouse {
-    private final Semaphore semaphore;
-    private int products = 5;
-    private final int capacity;
+/** ========================= SimScheduler ========================= **/
+/**
+ * Сон акторів у симульованому часі: "до моменту T" або "до наступної межі розкладу".
+ * Момент T перераховується у мітку реального годинника і потік паркується (LockSupport.parkNanos)
+ * рівно до неї - без опитування годинника, тож актор, що чекає, не витрачає CPU.
+ * Переривання - як у Thread.sleep: InterruptedException зі скинутим прапорцем.
+ */
+class SimScheduler {
     private final Clock clock;
 
-    public Warehouse(int capacity, Clock clock) {
-        this.capacity = capacity;
+    public SimScheduler(Clock clock) {
         this.clock = clock;
-        this.semaphore = new Semaphore(capacity, true);
-
-        semaphore.drainPermits();
-        semaphore.release(capacity - products);
-
-        Logger.print(clock, String.format("Склад відкрито → старт: %d товарів (місткість %,d)", products, capacity));
     }
 
-    public synchronized void addProducts(int amount) throws InterruptedException {
-        int free = capacity - products;
-        int added = Math.min(amount, free);
-
-        if (added > 0) {
-            for (int i = 0; i < added; i++) semaphore.acquire();
-            products += added;
-            Logger.print(clock, String.format("Постачальник привіз %,d (всього %,d/%,d)", added, products, capacity));
-        } else {
-            Logger.print(clock, "Постачальник прийшов → склад повністю заповнений");
+    /** Спить, доки час симуляції (секунди від старту) не досягне totalSimSec */
+    public void sleepUntil(long totalSimSec) throws InterruptedException {
+        long deadline = clock.realMillisAt(totalSimSec);
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            LockSupport.parkNanos(this, remaining * 1_000_000L);
+            // parkNanos може повернутися раніше (переривання чи хибне пробудження) - тоді перевіряємо знову
+            if (Thread.interrupted()) throw new InterruptedException();
         }
     }
 
-    public synchronized void removeProducts(int desired) {
-        int taken = Math.min(desired, products);
-
-        if (taken == 0) {
-            Logger.print(clock, "Покупець прийшов → товарів немає");
-            return;
-        }
-
-        for (int i = 0; i < taken; i++) semaphore.release();
-
-        products -= taken;
-        Logger.print(clock, String.format("Покупець купив %,d → залишилось %,d/%,d", taken, products, capacity));
-    }
-
-    public synchronized int getProductsCount() {
-        return products;
-    }
-
-    public int getCapacity() {
-        return capacity;
+    /**
+     * Спить від моменту now до наступної межі розкладу (Clock.TRANSITIONS) і повертає її секунду доби.
+     * now - той самий знімок часу, за яким актор щойно перевіряв правила: якби тут годинник читався
+     * ще раз, межа між перевіркою і сном могла б уже минути, і актор проспав би весь наступний проміжок.
+     */
+    public int sleepUntilNextTransition(long now) throws InterruptedException {
+        int sod = clock.secondOfDay(now);
+        int boundary = Clock.nextTransitionAfter(sod);
+        sleepUntil(now + Clock.secondsUntil(sod, boundary));
+        return boundary;
     }
 }
 
@@ -272,11 +136,13 @@ class Warehouse {
 class Supplier implements Runnable {
     private final Warehouse warehouse;
     private final Clock clock;
+    private final SimScheduler scheduler;
     private final Random rand;
 
-    public Supplier(Warehouse w, Clock c, Random r) {
+    public Supplier(Warehouse w, Clock c, SimScheduler s, Random r) {
         warehouse = w;
         clock = c;
+        scheduler = s;
         rand = r;
     }
 
@@ -285,20 +151,21 @@ class Supplier implements Runnable {
         try {
             while (!Thread.currentThread().isInterrupted()) {
 
-                // ком. година, просто пропуск
-                if (clock.isCurfew()) {
-                    continue;
-                }
+                // один знімок часу і для правил, і для паузи до наступної межі
+                long now = clock.simulatedSecondsSinceStart();
+                int sod = clock.secondOfDay(now);
 
-                if (!clock.isSupplierWorkingHours()) {
-                    Logger.print(clock, "Постачальник не працює → неробочий час");
-                    Thread.sleep(2000);
+                // неробочий час (і ком. година) - спить до наступної межі розкладу, а не опитує годинник
+                if (!Clock.isSupplierWorkingHoursAt(sod)) {
+                    if (!Clock.isCurfewAt(sod)) Logger.print(clock, "Постачальник не працює → неробочий час");
+                    scheduler.sleepUntilNextTransition(now);
                     continue;
                 }
 
-                if (clock.isSupplierOnLunch()) {
+                // обід - спить до 13:00
+                if (Clock.isSupplierOnLunchAt(sod)) {
                     Logger.print(clock, "Постачальник на обіді");
-                    Thread.sleep((1500 + rand.nextInt(1001)));
+                    scheduler.sleepUntilNextTransition(now);
                     continue;
                 }
 
@@ -321,11 +188,13 @@ class Supplier implements Runnable {
 class Customer implements Runnable {
     private final Warehouse warehouse;
     private final Clock clock;
+    private final SimScheduler scheduler;
     private final Random rand;
 
-    public Customer(Warehouse w, Clock c, Random r) {
+    public Customer(Warehouse w, Clock c, SimScheduler s, Random r) {
         warehouse = w;
         clock = c;
+        scheduler = s;
         rand = r;
     }
 
@@ -337,13 +206,13 @@ class Customer implements Runnable {
                 long realSleep = (1 + rand.nextInt(2)) * 1000L;
                 Thread.sleep(realSleep);
 
-                // ком. година, просто пропуск
-                if (clock.isCurfew()) {
-                    continue;
-                }
+                long now = clock.simulatedSecondsSinceStart();
+                int sod = clock.secondOfDay(now);
 
-                if (!clock.isShopOpen()) {
-                    Logger.print(clock, "Покупець прийшов → магазин зачинений");
+                // магазин зачинений (і ком. година) - наступний візит не раніше наступної межі розкладу
+                if (!Clock.isShopOpenAt(sod)) {
+                    if (!Clock.isCurfewAt(sod)) Logger.print(clock, "Покупець прийшов → магазин зачинений");
+                    scheduler.sleepUntilNextTransition(now);
                     continue;
                 }
 
@@ -0,0 +1,240 @@
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Масштабна симуляція складу: тисячі постачальників і покупців одночасно.
+ *
+ * Віртуальних потоків у Java 17 ще немає, тому актори тут - не потоки, а об'єкти зі станом.
+ * Кожен крок актора - коротка задача у ScheduledThreadPoolExecutor, яка наприкінці
+ * планує наступний крок на момент наступної події цього актора. Між подіями актор
+ * не займає ні потоку, ні CPU, тож 10 000+ акторів обслуговують кілька робочих потоків.
+ * Правила ті самі, що й у Supplier/Customer з Main; склад - Warehouse зі смугами,
+ * а з --shards N - мережа з N складів (WarehouseNetwork), місткість ділиться між ними порівну
+ * (залишок від ділення - першим складам).
+ *
+ * Запуск:
+ *   java MassSimulation --suppliers 1000 --customers 10000 --hours 24 --capacity 100000
+ *                       --stripes 64 --workers 8 --seed 42
+ *                       [--shards 16 --routing hash|nearest --max-hops 2 --rebalance-ms 500]
+ */
+public class MassSimulation {
+
+    private static final int SIM_SECONDS_PER_REAL_SECOND = 1200;
+
+    /** Лічильники симуляції (LongAdder - без конкуренції між робочими потоками) */
+    static class Stats {
+        final LongAdder customerVisits = new LongAdder();   // прийшов, магазин відчинено
+        final LongAdder closedVisits = new LongAdder();     // прийшов, магазин зачинено
+        final LongAdder purchases = new LongAdder();
+        final LongAdder itemsSold = new LongAdder();
+        final LongAdder partial = new LongAdder();          // купив менше, ніж хотів
+        final LongAdder stockOuts = new LongAdder();        // товарів немає зовсім
+        final LongAdder deliveries = new LongAdder();
+        final LongAdder itemsDelivered = new LongAdder();
+        final LongAdder warehouseFull = new LongAdder();    // постачальник не зміг нічого вивантажити
+
+        long transactions() {
+            return customerVisits.sum() + deliveries.sum() + warehouseFull.sum();
+        }
+
+        void printSummary(Inventory warehouse) {
+            long visits = customerVisits.sum();
+            long supplierArrivals = deliveries.sum() + warehouseFull.sum();
+            System.out.printf("Покупці: %,d візитів у відчинений магазин (+%,d у зачинений), куплено %,d товарів%n",
+                    visits, closedVisits.sum(), itemsSold.sum());
+            System.out.printf("  немає товару: %,d (%.2f%%), неповна покупка: %,d (%.2f%%)%n",
+                    stockOuts.sum(), percent(stockOuts.sum(), visits), partial.sum(), percent(partial.sum(), visits));
+            System.out.printf("Постачальники: %,d поставок, привезено %,d товарів, склад повний: %,d (%.2f%%)%n",
+                    deliveries.sum(), itemsDelivered.sum(), warehouseFull.sum(), percent(warehouseFull.sum(), supplierArrivals));
+            System.out.printf("На складі: %,d із %,d товарів%n", warehouse.getProductsCount(), warehouse.getCapacity());
+        }
+
+        private static double percent(long part, long total) {
+            return total == 0 ? 0 : part * 100.0 / total;
+        }
+    }
+
+    /** Спільне для акторів: планування наступного кроку у сим. секундах */
+    abstract static class Actor implements Runnable {
+        final ScheduledThreadPoolExecutor scheduler;
+        final Clock clock;
+        final Inventory warehouse;
+        final int id;              // ключ маршрутизації у мережі складів
+        final Stats stats;
+        final SplittableRandom rand;
+
+        Actor(ScheduledThreadPoolExecutor scheduler, Clock clock, Inventory warehouse, int id, Stats stats, SplittableRandom rand) {
+            this.scheduler = scheduler;
+            this.clock = clock;
+            this.warehouse = warehouse;
+            this.id = id;
+            this.stats = stats;
+            this.rand = rand;
+        }
+
+        void scheduleInRealMillis(long millis) {
+            if (!scheduler.isShutdown()) scheduler.schedule(this, millis, TimeUnit.MILLISECONDS);
+        }
+
+        long millisUntilCurfewEnd(int secondOfDay) {
+            return clock.realMillisUntil(secondOfDay, Clock.CURFEW_END);
+        }
+    }
+
+    /** Покупець: кожні 1..2 с реального приходить і хоче купити 1..3 товари */
+    static class CustomerActor extends Actor {
+        CustomerActor(ScheduledThreadPoolExecutor s, Clock c, Inventory w, int id, Stats st, SplittableRandom r) {
+            super(s, c, w, id, st, r);
+        }
+
+        @Override
+        public void run() {
+            int sod = clock.secondOfDay(); // один знімок часу для всіх правил цього кроку
+            if (Clock.isCurfewAt(sod)) {
+                scheduleInRealMillis(millisUntilCurfewEnd(sod));
+                return;
+            }
+            if (!Clock.isShopOpenAt(sod)) {
+                stats.closedVisits.increment();
+            } else {
+                int want = 1 + rand.nextInt(3);
+                int taken = warehouse.removeProducts(id, want);
+                stats.customerVisits.increment();
+                if (taken == 0) {
+                    stats.stockOuts.increment();
+                } else {
+                    stats.purchases.increment();
+                    stats.itemsSold.add(taken);
+                    if (taken < want) stats.partial.increment();
+                }
+            }
+            scheduleInRealMillis((1 + rand.nextInt(2)) * 1000L);
+        }
+    }
+
+    /** Постачальник: у робочі години кожні 3..4 с реального привозить 3..7 товарів */
+    static class SupplierActor extends Actor {
+        private boolean onTheWay; // виїхав на склад, наступний крок - розвантаження
+
+        SupplierActor(ScheduledThreadPoolExecutor s, Clock c, Inventory w, int id, Stats st, SplittableRandom r) {
+            super(s, c, w, id, st, r);
+        }
+
+        @Override
+        public void run() {
+            if (onTheWay) {
+                onTheWay = false;
+                int added = warehouse.addProducts(id, 3 + rand.nextInt(5));
+                if (added > 0) {
+                    stats.deliveries.increment();
+                    stats.itemsDelivered.add(added);
+                } else {
+                    stats.warehouseFull.increment();
+                }
+            }
+
+            int sod = clock.secondOfDay();
+            if (Clock.isCurfewAt(sod)) {
+                scheduleInRealMillis(millisUntilCurfewEnd(sod));
+            } else if (!Clock.isSupplierWorkingHoursAt(sod)) {
+                scheduleInRealMillis(2000);
+            } else if (Clock.isSupplierOnLunchAt(sod)) {
+                scheduleInRealMillis(1500 + rand.nextInt(1001));
+            } else {
+                onTheWay = true;
+                scheduleInRealMillis((3 + rand.nextInt(2)) * 1000L);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> opts = BatchSupport.parseOptions(args);
+
+        int suppliers = Integer.parseInt(opts.getOrDefault("suppliers", "1000"));
+        int customers = Integer.parseInt(opts.getOrDefault("customers", "10000"));
+        int hours = Integer.parseInt(opts.getOrDefault("hours", "24"));
+        int capacity = Integer.parseInt(opts.getOrDefault("capacity", String.valueOf(Math.max(100, suppliers * 100))));
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int stripes = Integer.parseInt(opts.getOrDefault("stripes", String.valueOf(Math.min(capacity, Math.max(1, Integer.highestOneBit(cpus * 4))))));
+        int workers = Integer.parseInt(opts.getOrDefault("workers", String.valueOf(cpus)));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+        int shards = Integer.parseInt(opts.getOrDefault("shards", "1"));
+        WarehouseNetwork.Routing routing = WarehouseNetwork.Routing.valueOf(opts.getOrDefault("routing", "hash").toUpperCase());
+        int maxHops = Integer.parseInt(opts.getOrDefault("max-hops", "2"));
+        long rebalanceMillis = Long.parseLong(opts.getOrDefault("rebalance-ms", "500"));
+
+        long realDurationMillis = hours * 3600L * 1000L / SIM_SECONDS_PER_REAL_SECOND;
+        System.out.printf("МАСШТАБНА СИМУЛЯЦІЯ: %,d постачальників, %,d покупців, %d год (≈ %.2f хв реального часу)%n",
+                suppliers, customers, hours, realDurationMillis / 60000.0);
+        Clock clock = new Clock(SIM_SECONDS_PER_REAL_SECOND, LocalTime.of(8, 0));
+        Inventory warehouse;
+        WarehouseNetwork network = null;
+        if (shards > 1) {
+            network = new WarehouseNetwork(shards, capacity, stripes, routing, maxHops); // перевіряє shards ≤ capacity
+            warehouse = network;
+            System.out.printf("Мережа: %d складів на місткість %,d (по %,d-%,d, смуг до %d), маршрутизація %s, балансування %s | робочих потоків планувальника: %d%n%n",
+                    shards, capacity, capacity / shards, (capacity + shards - 1) / shards, Math.min(stripes, capacity / shards),
+                    routing, rebalanceMillis > 0 ? "кожні " + rebalanceMillis + " мс" : "вимкнено", workers);
+        } else {
+            warehouse = new Warehouse(capacity, stripes, clock, false);
+            System.out.printf("Склад: місткість %,d, смуг %d | робочих потоків планувальника: %d%n%n", capacity, stripes, workers);
+        }
+        Stats stats = new Stats();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(workers);
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        long t0;
+        try {
+            if (network != null && rebalanceMillis > 0) network.startRebalancer(rebalanceMillis);
+
+            // перший крок кожного актора - у випадковий момент свого періоду, щоб не прийшли всі разом
+            SplittableRandom master = new SplittableRandom(seed);
+            for (int i = 0; i < suppliers; i++) {
+                SplittableRandom r = master.split();
+                scheduler.schedule(new SupplierActor(scheduler, clock, warehouse, i, stats, r), r.nextInt(4000), TimeUnit.MILLISECONDS);
+            }
+            for (int i = 0; i < customers; i++) {
+                SplittableRandom r = master.split();
+                scheduler.schedule(new CustomerActor(scheduler, clock, warehouse, i, stats, r), r.nextInt(2000), TimeUnit.MILLISECONDS);
+            }
+
+            Logger.print(clock, "Старт симуляції");
+            t0 = System.nanoTime();
+
+            // проміжний звіт раз на симульовану годину
+            long hourMillis = 3600L * 1000L / SIM_SECONDS_PER_REAL_SECOND;
+            long[] lastTx = {0};
+            scheduler.scheduleAtFixedRate(() -> {
+                long tx = stats.transactions();
+                Logger.print(clock, String.format("%,8d транзакцій/с | на складі %,d/%,d | немає товару: %,d",
+                        (tx - lastTx[0]) * 1000L / hourMillis, warehouse.getProductsCount(), warehouse.getCapacity(), stats.stockOuts.sum()));
+                lastTx[0] = tx;
+            }, hourMillis, hourMillis, TimeUnit.MILLISECONDS);
+
+            try {
+                Thread.sleep(realDurationMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } finally {
+            // і на шляху з винятком: зупиняємо планувальник і балансувальник, інакше їхні потоки житимуть далі
+            scheduler.shutdownNow();
+            if (network != null) network.close();
+        }
+        double realSeconds = (System.nanoTime() - t0) / 1e9;
+
+        Logger.printSeparator();
+        Logger.print(clock, "Симуляція завершена");
+        Logger.shutdown(); // далі звіт пишеться напряму в System.out
+        System.out.printf("Реальний час: %.2f с, транзакцій: %,d → %,.0f транзакцій/с%n",
+                realSeconds, stats.transactions(), stats.transactions() / realSeconds);
+        stats.printSummary(warehouse);
+        if (network != null) network.printReport(realSeconds);
+    }
+}
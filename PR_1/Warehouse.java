@@ -0,0 +1,128 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Склад без блокувань.
+ * Запас зберігається у кількох смугах (stripes) - незалежних атомарних лічильниках,
+ * кожна зі своєю часткою місткості. Партія товару додається/забирається одним CAS
+ * на смугу (без монітора і без поштучних permit-ів); починаємо з випадкової смуги
+ * і переходимо до наступних, якщо в ній не вистачило місця чи товару.
+ * Тож тисячі акторів рідко б'ються за одну кеш-лінію, а взаємоблокування неможливе.
+ * getProductsCount() - сума смуг без блокування, під навантаженням це знімок "приблизно зараз".
+ * З однією смугою (як у Main) поведінка та сама, що й у версії з synchronized + Semaphore.
+ */
+class Warehouse implements Inventory {
+    private static final int INITIAL_PRODUCTS = 5;
+    private static final int PAD = 16; // 16 int = 64 байти: кожна смуга у своїй кеш-лінії
+
+    private final AtomicIntegerArray stock;
+    private final int[] stripeCapacity;
+    private final int stripes;
+    private final int capacity;
+    private final Clock clock;
+    private final boolean logging;
+
+    public Warehouse(int capacity, Clock clock) {
+        this(capacity, 1, clock, true);
+    }
+
+    public Warehouse(int capacity, int stripes, Clock clock, boolean logging) {
+        if (stripes < 1 || stripes > capacity) {
+            throw new IllegalArgumentException("Кількість смуг має бути від 1 до місткості складу: " + stripes);
+        }
+        this.capacity = capacity;
+        this.stripes = stripes;
+        this.clock = clock;
+        this.logging = logging;
+        this.stock = new AtomicIntegerArray(stripes * PAD);
+        this.stripeCapacity = new int[stripes];
+        for (int i = 0; i < stripes; i++) {
+            stripeCapacity[i] = capacity / stripes + (i < capacity % stripes ? 1 : 0);
+        }
+
+        // стартові товари розкладаємо по смугах по колу
+        int initial = Math.min(INITIAL_PRODUCTS, capacity);
+        for (int i = 0; initial > 0; i = (i + 1) % stripes) {
+            if (stock.get(i * PAD) < stripeCapacity[i]) {
+                stock.incrementAndGet(i * PAD);
+                initial--;
+            }
+        }
+
+        if (logging) {
+            Logger.print(clock, String.format("Склад відкрито → старт: %d товарів (місткість %,d)", getProductsCount(), capacity));
+        }
+    }
+
+    private int firstStripe() {
+        return stripes == 1 ? 0 : ThreadLocalRandom.current().nextInt(stripes);
+    }
+
+    @Override
+    public int addProducts(int amount) {
+        int added = 0;
+        int first = firstStripe();
+        for (int k = 0; k < stripes && added < amount; k++) {
+            int s = (first + k) % stripes;
+            int idx = s * PAD;
+            while (true) {
+                int cur = stock.get(idx);
+                int put = Math.min(amount - added, stripeCapacity[s] - cur);
+                if (put <= 0) break;
+                if (stock.compareAndSet(idx, cur, cur + put)) {
+                    added += put;
+                    break;
+                }
+                // CAS не вдався - смугу змінив інший потік, перечитуємо
+            }
+        }
+
+        if (logging) {
+            if (added > 0) {
+                Logger.print(clock, String.format("Постачальник привіз %,d (всього %,d/%,d)", added, getProductsCount(), capacity));
+            } else {
+                Logger.print(clock, "Постачальник прийшов → склад повністю заповнений");
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public int removeProducts(int desired) {
+        int taken = 0;
+        int first = firstStripe();
+        for (int k = 0; k < stripes && taken < desired; k++) {
+            int idx = ((first + k) % stripes) * PAD;
+            while (true) {
+                int cur = stock.get(idx);
+                int take = Math.min(desired - taken, cur);
+                if (take <= 0) break;
+                if (stock.compareAndSet(idx, cur, cur - take)) {
+                    taken += take;
+                    break;
+                }
+            }
+        }
+
+        if (logging) {
+            if (taken == 0) {
+                Logger.print(clock, "Покупець прийшов → товарів немає");
+            } else {
+                Logger.print(clock, String.format("Покупець купив %,d → залишилось %,d/%,d", taken, getProductsCount(), capacity));
+            }
+        }
+        return taken;
+    }
+
+    @Override
+    public int getProductsCount() {
+        int sum = 0;
+        for (int i = 0; i < stripes; i++) sum += stock.get(i * PAD);
+        return sum;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,169 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Бенчмарк конкуренції за склад з Практичної №1 (у стилі JMH).
+ *
+ * N потоків-акторів (половина постачальники, половина покупці) без пауз викликають
+ * addProducts(3..7) / removeProducts(1..3). Порівнюються:
+ * - LockingWarehouse - попередній дизайн (synchronized + поштучні permit-и Semaphore);
+ * - Warehouse з однією смугою - один CAS-лічильник;
+ * - Warehouse з кількома смугами;
+ * - WarehouseNetwork з кількома складами (--shards): кожен потік працює зі своїм домашнім складом
+ *   (ключ - номер потоку), маршрутизація NEAREST на 1 сусіда, без фонового балансувальника.
+ * Міряється пропускна здатність (операцій за секунду), після кожного прогону перевіряється,
+ * що товар не з'явився і не зник: старт + додано - забрано = залишок, 0 <= залишок <= місткість.
+ *
+ * Запуск:
+ *   java WarehouseBenchmark --threads 1,4,16,64 --ops 200000 --capacity 10000 --stripes 16 --shards 4,16
+ *                           --warmup 3 --iterations 5 --out WarehouseBenchmark.json
+ */
+public class WarehouseBenchmark {
+
+    /** Попередня реалізація складу (без логування) - база для порівняння */
+    static class LockingWarehouse implements Inventory {
+        private final Semaphore semaphore;
+        private int products = 5;
+        private final int capacity;
+
+        LockingWarehouse(int capacity) {
+            this.capacity = capacity;
+            this.semaphore = new Semaphore(capacity, true);
+            semaphore.drainPermits();
+            semaphore.release(capacity - products);
+        }
+
+        @Override
+        public synchronized int addProducts(int amount) {
+            int added = Math.min(amount, capacity - products);
+            for (int i = 0; i < added; i++) semaphore.acquireUninterruptibly();
+            products += added;
+            return added;
+        }
+
+        @Override
+        public synchronized int removeProducts(int desired) {
+            int taken = Math.min(desired, products);
+            for (int i = 0; i < taken; i++) semaphore.release();
+            products -= taken;
+            return taken;
+        }
+
+        @Override
+        public synchronized int getProductsCount() {
+            return products;
+        }
+
+        @Override
+        public int getCapacity() {
+            return capacity;
+        }
+    }
+
+    interface Factory {
+        Inventory create();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = BatchSupport.parseOptions(args);
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int[] threads = BatchSupport.ints(opts.getOrDefault("threads", "1,4,16,64"));
+        int ops = Integer.parseInt(opts.getOrDefault("ops", "200000"));
+        int capacity = Integer.parseInt(opts.getOrDefault("capacity", "10000"));
+        int stripes = Integer.parseInt(opts.getOrDefault("stripes", String.valueOf(Math.max(2, Integer.highestOneBit(cpus * 2)))));
+        int[] shards = BatchSupport.ints(opts.getOrDefault("shards", "4,16"));
+        int warmup = BatchSupport.warmup(opts, 3);
+        int iterations = BatchSupport.iterations(opts, 5);
+        Path out = Paths.get(opts.getOrDefault("out", "WarehouseBenchmark.json"));
+
+        Map<String, Factory> impls = new LinkedHashMap<>();
+        impls.put("LockingWarehouse", () -> new LockingWarehouse(capacity));
+        impls.put("Warehouse(stripes=1)", () -> new Warehouse(capacity, 1, null, false));
+        impls.put("Warehouse(stripes=" + stripes + ")", () -> new Warehouse(capacity, stripes, null, false));
+        for (int n : shards) {
+            // перевіряємо до першого прогону, а не посеред бенчмарку
+            if (n < 1 || n > capacity) throw new IllegalArgumentException("--shards має бути від 1 до місткості " + capacity + ": " + n);
+            impls.put("WarehouseNetwork(shards=" + n + ")",
+                    () -> new WarehouseNetwork(n, capacity, 1, WarehouseNetwork.Routing.NEAREST, 1));
+        }
+
+        List<BatchSupport.Result> results = new ArrayList<>();
+
+        for (int t : threads) {
+            for (Map.Entry<String, Factory> impl : impls.entrySet()) {
+                for (int i = 0; i < warmup; i++) run(impl.getValue().create(), t, ops);
+                double[] s = new double[iterations];
+                for (int i = 0; i < iterations; i++) {
+                    System.gc();
+                    s[i] = run(impl.getValue().create(), t, ops);
+                }
+                Map<String, String> params = new LinkedHashMap<>();
+                params.put("threads", String.valueOf(t));
+                params.put("opsPerThread", String.valueOf(ops));
+                params.put("capacity", String.valueOf(capacity));
+                BatchSupport.Result r = new BatchSupport.Result(impl.getKey(), params, s);
+                results.add(r);
+                System.out.printf("%-28s threads=%-4d %14.0f ± %12.0f ops/s%n", impl.getKey(), t, r.mean(), r.error());
+            }
+        }
+
+        BatchSupport.writeJson(out, "thrpt", "ops/s", results, warmup, iterations);
+        System.out.println("Результати записано у " + out);
+    }
+
+    /** Один прогін: t потоків по ops операцій, повертає операцій за секунду */
+    static double run(Inventory w, int t, int ops) throws InterruptedException {
+        int startCount = w.getProductsCount();
+        LongAdder added = new LongAdder();
+        LongAdder taken = new LongAdder();
+        CountDownLatch ready = new CountDownLatch(t);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[t];
+
+        for (int i = 0; i < t; i++) {
+            final int key = i;
+            final boolean supplier = i % 2 == 0;
+            final long seed = 42 + i;
+            workers[i] = new Thread(() -> {
+                SplittableRandom rnd = new SplittableRandom(seed);
+                long a = 0, b = 0;
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int k = 0; k < ops; k++) {
+                    // єдиний потік грає обидві ролі по черзі
+                    if (t == 1 ? (k & 1) == 0 : supplier) a += w.addProducts(key, 3 + rnd.nextInt(5));
+                    else b += w.removeProducts(key, 1 + rnd.nextInt(3));
+                }
+                added.add(a);
+                taken.add(b);
+            });
+            workers[i].start();
+        }
+
+        ready.await();
+        long t0 = System.nanoTime();
+        go.countDown();
+        for (Thread worker : workers) worker.join();
+        long elapsed = System.nanoTime() - t0;
+
+        int left = w.getProductsCount();
+        if (left != startCount + added.sum() - taken.sum() || left < 0 || left > w.getCapacity()) {
+            throw new IllegalStateException(String.format("Порушено баланс складу: старт %d + %d - %d != %d",
+                    startCount, added.sum(), taken.sum(), left));
+        }
+        return (double) t * ops / (elapsed / 1e9);
+    }
+}
@@ -0,0 +1,290 @@
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Мережа складів: замість одного Warehouse - кілька незалежних складів (шардів).
+ *
+ * Кожен шард - окремий Warehouse зі своїми CAS-лічильниками і своїми LongAdder-метриками,
+ * тож актори різних шардів не конкурують ні за запас, ні за лічильники: спільного стану
+ * на гарячому шляху немає, і пропускна здатність росте разом із кількістю шардів.
+ *
+ * Маршрутизація за ключем актора (номер покупця чи постачальника) - "домашній" склад hash(key) % N:
+ *   HASH    - лише домашній склад; порожній (чи повний для постачальника) - відмова;
+ *   NEAREST - домашній, а якщо там немає товару (місця) - сусіди по кільцю: +1, -1, +2, -2 ... до maxHops.
+ * Фоновий балансувальник (startRebalancer) періодично перевозить товар з найповніших складів
+ * у найпорожніші, щоб HASH-маршрутизація рідше впиралась у порожній склад. Товар, який не вліз
+ * в отримувача (його встигли заповнити постачальники), повертається на склад-відправник чи будь-який
+ * інший. Лише коли заповнена вся мережа, він чекає "в дорозі" наступного проходу: такий товар не
+ * губиться, але й не входить у getProductsCount(), тож запас мережі ніколи не перевищує місткість.
+ */
+public class WarehouseNetwork implements Inventory, AutoCloseable {
+
+    enum Routing { HASH, NEAREST }
+
+    /** Один склад мережі та його лічильники */
+    static final class Shard {
+        final int id;
+        final Warehouse stock;
+
+        // з боку домашніх акторів
+        final LongAdder requests = new LongAdder();        // покупці, для яких склад домашній
+        final LongAdder stockOuts = new LongAdder();       // нічого не дісталося ні тут, ні у сусідів
+        final LongAdder redirected = new LongAdder();      // обслужив інший склад
+        final LongAdder full = new LongAdder();            // домашньому постачальнику ніде вивантажити
+
+        // з боку складу, що обслужив
+        final LongAdder transactions = new LongAdder();    // продажі + поставки, виконані цим складом
+        final LongAdder itemsSold = new LongAdder();
+        final LongAdder itemsDelivered = new LongAdder();
+        final LongAdder rebalancedIn = new LongAdder();
+        final LongAdder rebalancedOut = new LongAdder();
+
+        Shard(int id, int capacity, int stripes) {
+            this.id = id;
+            this.stock = new Warehouse(capacity, stripes, null, false);
+        }
+
+        double fill() {
+            return (double) stock.getProductsCount() / stock.getCapacity();
+        }
+    }
+
+    private static final double REBALANCE_GAP = 0.2; // перевозимо, коли заповненість відрізняється більш ніж на 20%
+
+    private final Shard[] shards;
+    private final Routing routing;
+    private final int probes;                          // скільки складів пробує один запит
+    private final LongAdder rebalanceRounds = new LongAdder();
+    private final LongAdder rebalancedItems = new LongAdder();
+    private final AtomicInteger inTransit = new AtomicInteger(); // вивезено, але ніде не вмістилося
+    private ScheduledExecutorService rebalancer;
+
+    /**
+     * totalCapacity ділиться між складами, як місткість між смугами у Warehouse: залишок від ділення
+     * отримують перші склади. Смуг на склад - не більше за його місткість.
+     */
+    public WarehouseNetwork(int shardCount, int totalCapacity, int stripesPerShard, Routing routing, int maxHops) {
+        if (shardCount < 1) throw new IllegalArgumentException("Кількість складів має бути ≥ 1: " + shardCount);
+        if (shardCount > totalCapacity) {
+            throw new IllegalArgumentException("Складів більше, ніж місця: " + shardCount + " складів на місткість " + totalCapacity);
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int capacity = totalCapacity / shardCount + (i < totalCapacity % shardCount ? 1 : 0);
+            shards[i] = new Shard(i, capacity, Math.min(stripesPerShard, capacity));
+        }
+        this.routing = routing;
+        this.probes = routing == Routing.HASH ? 1 : Math.min(shardCount, 2 * Math.max(0, maxHops) + 1);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    Shard shard(int i) {
+        return shards[i];
+    }
+
+    /** Домашній склад актора key (ключ перемішується, щоб сусідні номери не йшли на сусідні склади) */
+    int home(int key) {
+        int h = key * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    // k-та спроба: домашній, +1, -1, +2, -2 ... по кільцю
+    private Shard probe(int home, int k) {
+        int offset = (k & 1) == 1 ? (k + 1) / 2 : -(k / 2);
+        return shards[Math.floorMod(home + offset, shards.length)];
+    }
+
+    @Override
+    public int removeProducts(int key, int desired) {
+        Shard homeShard = shards[home(key)];
+        homeShard.requests.increment();
+        for (int k = 0; k < probes; k++) {
+            Shard s = probe(homeShard.id, k);
+            int taken = s.stock.removeProducts(desired);
+            if (taken > 0) {
+                s.transactions.increment();
+                s.itemsSold.add(taken);
+                if (s != homeShard) homeShard.redirected.increment();
+                return taken;
+            }
+        }
+        homeShard.stockOuts.increment();
+        return 0;
+    }
+
+    @Override
+    public int addProducts(int key, int amount) {
+        Shard homeShard = shards[home(key)];
+        for (int k = 0; k < probes; k++) {
+            Shard s = probe(homeShard.id, k);
+            int added = s.stock.addProducts(amount);
+            if (added > 0) {
+                s.transactions.increment();
+                s.itemsDelivered.add(added);
+                return added;
+            }
+        }
+        homeShard.full.increment();
+        return 0;
+    }
+
+    // без ключа - випадковий домашній склад
+    @Override
+    public int addProducts(int amount) {
+        return addProducts(ThreadLocalRandom.current().nextInt(), amount);
+    }
+
+    @Override
+    public int removeProducts(int desired) {
+        return removeProducts(ThreadLocalRandom.current().nextInt(), desired);
+    }
+
+    @Override
+    public int getProductsCount() {
+        int sum = 0;
+        for (Shard s : shards) sum += s.stock.getProductsCount();
+        return sum;
+    }
+
+    @Override
+    public int getCapacity() {
+        int sum = 0;
+        for (Shard s : shards) sum += s.stock.getCapacity();
+        return sum;
+    }
+
+    /** Товар "в дорозі": вивезений балансувальником, коли вся мережа вже була заповнена */
+    int inTransit() {
+        return inTransit.get();
+    }
+
+    /* ========================= Балансування ========================= */
+
+    /**
+     * Один прохід: склади сортуються за заповненістю, i-й найповніший віддає i-му найпорожнішому
+     * стільки, щоб їхня заповненість зрівнялась. Спершу довозить те, що лишилось у дорозі
+     * з попереднього проходу. Повертає, скільки товарів вивантажено.
+     */
+    public int rebalance() {
+        int n = shards.length;
+        // (заповненість у мільйонних << 32) | номер - сортування примітивів без компаратора
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) order[i] = ((long) (shards[i].fill() * 1_000_000) << 32) | i;
+        Arrays.sort(order);
+
+        int moved = 0;
+        for (int i = 0; i < n && inTransit.get() > 0; i++) moved += unload(shards[(int) order[i]]); // найпорожніші першими
+        for (int lo = 0, hi = n - 1; lo < hi; lo++, hi--) {
+            Shard low = shards[(int) order[lo]];
+            Shard high = shards[(int) order[hi]];
+            if (high.fill() - low.fill() < REBALANCE_GAP) break; // далі пари ще ближчі
+
+            int highCount = high.stock.getProductsCount();
+            int lowCount = low.stock.getProductsCount();
+            double target = (double) (highCount + lowCount) / (high.stock.getCapacity() + low.stock.getCapacity());
+            int amount = highCount - (int) Math.round(target * high.stock.getCapacity());
+            if (amount > 0) moved += transfer(high, low, amount);
+        }
+        rebalanceRounds.increment();
+        rebalancedItems.add(moved);
+        return moved;
+    }
+
+    private int transfer(Shard from, Shard to, int amount) {
+        int free = to.stock.getCapacity() - to.stock.getProductsCount();
+        int taken = from.stock.removeProducts(Math.min(amount, free));
+        if (taken == 0) return 0;
+        int put = to.stock.addProducts(taken);
+        // поки везли, склад-отримувач могли заповнити постачальники - решту повертаємо назад,
+        // а якщо й там уже місця немає - на інші склади; не вмістилося ніде - чекає наступного проходу
+        int back = put < taken ? from.stock.addProducts(taken - put) : 0;
+        int rest = taken - put - back;
+        for (int i = 0; rest > 0 && i < shards.length; i++) {
+            Shard s = shards[i];
+            if (s == from || s == to) continue;
+            int added = s.stock.addProducts(rest);
+            s.rebalancedIn.add(added);
+            rest -= added;
+        }
+        if (rest > 0) inTransit.addAndGet(rest);
+
+        from.rebalancedOut.add(taken - back);
+        to.rebalancedIn.add(put);
+        return put;
+    }
+
+    // Вивантажує в склад to скільки влізе з того, що в дорозі
+    private int unload(Shard to) {
+        int load = inTransit.getAndSet(0);
+        if (load == 0) return 0;
+        int put = to.stock.addProducts(load);
+        if (put < load) inTransit.addAndGet(load - put);
+        to.rebalancedIn.add(put);
+        return put;
+    }
+
+    /** Запускає фоновий балансувальник з періодом periodMillis реального часу */
+    public synchronized void startRebalancer(long periodMillis) {
+        if (rebalancer != null) return;
+        rebalancer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Rebalancer");
+            t.setDaemon(true);
+            return t;
+        });
+        rebalancer.scheduleWithFixedDelay(() -> {
+            try {
+                rebalance();
+            } catch (RuntimeException e) {
+                System.err.println("Помилка балансувальника: " + e); // інакше executor мовчки зупинить задачу
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Зупиняє балансувальник, чекає на поточний прохід і вивантажує те, що лишилось у дорозі.
+     * Якщо потік перервали під час очікування - прапорець переривання відновлюється.
+     */
+    @Override
+    public synchronized void close() {
+        if (rebalancer != null) {
+            rebalancer.shutdownNow();
+            try {
+                rebalancer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rebalancer = null;
+        }
+        for (int i = 0; i < shards.length && inTransit.get() > 0; i++) unload(shards[i]);
+    }
+
+    /* ========================= Звіт ========================= */
+
+    public void printReport(double realSeconds) {
+        System.out.printf("Мережа: %d складів, маршрутизація %s | балансування: %,d проходів, перевезено %,d товарів%s%n",
+                shards.length, routing, rebalanceRounds.sum(), rebalancedItems.sum(),
+                inTransit.get() > 0 ? String.format(" (ще в дорозі %,d)", inTransit.get()) : "");
+        System.out.printf("%6s %15s %12s %12s %16s %14s %10s %14s%n",
+                "склад", "запас", "транз./с", "продано", "немає товару", "перенаправл.", "повний", "баланс +/-");
+        for (Shard s : shards) {
+            long requests = s.requests.sum();
+            System.out.printf("%6d %15s %12.0f %,12d %,9d %5.1f%% %,14d %,10d %14s%n",
+                    s.id,
+                    String.format("%,d/%,d", s.stock.getProductsCount(), s.stock.getCapacity()),
+                    s.transactions.sum() / realSeconds,
+                    s.itemsSold.sum(),
+                    s.stockOuts.sum(), requests == 0 ? 0 : s.stockOuts.sum() * 100.0 / requests,
+                    s.redirected.sum(),
+                    s.full.sum(),
+                    String.format("+%,d/-%,d", s.rebalancedIn.sum(), s.rebalancedOut.sum()));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Спільне для пакетних (неінтерактивних) запусків MatrixSum_Zavd1, FileFinder_Zavd2 і StrategyBenchmark.
+ *
+ * - параметри командного рядка у вигляді --name value;
+ * - warm-up ітерації (JIT), потім виміряні, перед кожною - System.gc();
+ * - результат кожного виклику йде у "blackhole", щоб JIT не викинув обчислення;
+ * - підсумок (середнє, похибка, перцентилі, сирі дані) пишеться у JSON у форматі JMH
+ *   або у CSV - по рядку на бенчмарк, зручно для нічних прогонів і таблиць.
+ */
+public final class BatchSupport {
+
+    private BatchSupport() {
+    }
+
+    // Результат одного бенчмарку з конкретними параметрами
+    static class Result {
+        final String benchmark;
+        final Map<String, String> params;
+        final double[] samplesMs;
+
+        Result(String benchmark, Map<String, String> params, double[] samplesMs) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.samplesMs = samplesMs;
+        }
+
+        double mean() {
+            double s = 0;
+            for (double v : samplesMs) s += v;
+            return s / samplesMs.length;
+        }
+
+        // Півширина довірчого інтервалу 99.9% (нормальне наближення, як scoreError у JMH)
+        double error() {
+            int n = samplesMs.length;
+            if (n < 2) return Double.NaN;
+            double m = mean(), ss = 0;
+            for (double v : samplesMs) ss += (v - m) * (v - m);
+            return 3.291 * Math.sqrt(ss / (n - 1)) / Math.sqrt(n);
+        }
+
+        double percentile(double p) {
+            double[] sorted = samplesMs.clone();
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+        }
+    }
+
+    // ----------------------------- Параметри -----------------------------
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Очікувався параметр --name, отримано: " + args[i]);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для параметра " + args[i]);
+            opts.put(args[i].substring(2), args[i + 1]);
+        }
+        return opts;
+    }
+
+    // --warmup і --iterations: без виміряних ітерацій середнє й перцентилі не мають сенсу
+    static int warmup(Map<String, String> opts, int byDefault) {
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", String.valueOf(byDefault)));
+        if (warmup < 0) throw new IllegalArgumentException("Кількість warm-up ітерацій має бути ≥ 0: " + warmup);
+        return warmup;
+    }
+
+    static int iterations(Map<String, String> opts, int byDefault) {
+        int iterations = Integer.parseInt(opts.getOrDefault("iterations", String.valueOf(byDefault)));
+        if (iterations < 1) throw new IllegalArgumentException("Кількість виміряних ітерацій має бути ≥ 1: " + iterations);
+        return iterations;
+    }
+
+    static List<Integer> ints(String csv) {
+        List<Integer> list = new ArrayList<>();
+        for (String v : csv.split(",")) list.add(Integer.parseInt(v.trim()));
+        return list;
+    }
+
+    static Map<String, String> params(Object... kv) {
+        Map<String, String> m = new LinkedHashMap<>();
+        for (int i = 0; i < kv.length; i += 2) m.put(String.valueOf(kv[i]), String.valueOf(kv[i + 1]));
+        return m;
+    }
+
+    // ----------------------------- Вимірювання -----------------------------
+
+    // "Чорна діра": змішує результати, щоб JIT не вважав обчислення мертвим кодом
+    private static volatile long blackhole;
+
+    static void consume(long[] sums) {
+        long h = blackhole;
+        for (long v : sums) h = h * 31 + v;
+        blackhole = h;
+    }
+
+    static void consume(Collection<?> items) {
+        blackhole += items.size();
+    }
+
+    static void consume(long v) {
+        blackhole += v;
+    }
+
+    // Одне вимірювання: warm-up + виміряні ітерації, повертає час кожної ітерації у мс
+    static double[] measure(int warmup, int iterations, Callable<?> body) throws Exception {
+        for (int i = 0; i < warmup; i++) body.call();
+        double[] samples = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            System.gc();
+            long t0 = System.nanoTime();
+            body.call();
+            samples[i] = (System.nanoTime() - t0) / 1_000_000.0;
+        }
+        return samples;
+    }
+
+    static Result report(String name, Map<String, String> params, double[] samples) {
+        Result r = new Result(name, params, samples);
+        System.out.printf("%-32s %-50s %10.3f ± %8.3f ms/op%n", name, params, r.mean(), r.error());
+        return r;
+    }
+
+    // ----------------------------- Звіт -----------------------------
+
+    // format: json (як у JMH) або csv
+    static void write(Path file, String format, List<Result> results, int warmup, int iterations) throws IOException {
+        if (format.equalsIgnoreCase("csv")) writeCsv(file, results);
+        else if (format.equalsIgnoreCase("json")) writeJson(file, results, warmup, iterations);
+        else throw new IllegalArgumentException("Невідомий формат: " + format + " (очікувався json або csv)");
+        System.out.println("Результати записано у " + file);
+    }
+
+    static void writeCsv(Path file, List<Result> results) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file))) {
+            pw.println("benchmark,params,iterations,mean_ms,error_ms,p0_ms,p50_ms,p90_ms,p99_ms,p100_ms");
+            for (Result r : results) {
+                StringJoiner params = new StringJoiner(";");
+                for (Map.Entry<String, String> e : r.params.entrySet()) params.add(e.getKey() + "=" + e.getValue());
+                pw.printf(Locale.ROOT, "%s,%s,%d,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f%n",
+                        csv(r.benchmark), csv(params.toString()), r.samplesMs.length, r.mean(), r.error(),
+                        r.percentile(0), r.percentile(50), r.percentile(90), r.percentile(99), r.percentile(100));
+            }
+        }
+    }
+
+    private static String csv(String s) {
+        return s.contains(",") || s.contains("\"") ? "\"" + s.replace("\"", "\"\"") + "\"" : s;
+    }
+
+    static void writeJson(Path file, List<Result> results, int warmup, int iterations) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file))) {
+            pw.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                pw.println("    {");
+                pw.printf("        \"benchmark\" : %s,%n", json(r.benchmark));
+                pw.println("        \"mode\" : \"avgt\",");
+                pw.printf("        \"threads\" : %s,%n", r.params.getOrDefault("threads", "1"));
+                pw.printf("        \"warmupIterations\" : %d,%n", warmup);
+                pw.printf("        \"measurementIterations\" : %d,%n", iterations);
+                pw.println("        \"params\" : {");
+                int k = 0;
+                for (Map.Entry<String, String> e : r.params.entrySet()) {
+                    pw.printf("            %s : %s%s%n", json(e.getKey()), json(e.getValue()), ++k < r.params.size() ? "," : "");
+                }
+                pw.println("        },");
+                pw.println("        \"primaryMetric\" : {");
+                pw.printf("            \"score\" : %s,%n", number(r.mean()));
+                pw.printf("            \"scoreError\" : %s,%n", number(r.error()));
+                pw.println("            \"scoreUnit\" : \"ms/op\",");
+                pw.printf("            \"scorePercentiles\" : { \"0.0\" : %s, \"50.0\" : %s, \"90.0\" : %s, \"99.0\" : %s, \"100.0\" : %s },%n",
+                        number(r.percentile(0)), number(r.percentile(50)), number(r.percentile(90)), number(r.percentile(99)), number(r.percentile(100)));
+                StringJoiner raw = new StringJoiner(", ", "[ [ ", " ] ]");
+                for (double v : r.samplesMs) raw.add(number(v));
+                pw.printf("            \"rawData\" : %s%n", raw);
+                pw.println("        }");
+                pw.println(i < results.size() - 1 ? "    }," : "    }");
+            }
+            pw.println("]");
+        }
+    }
+
+    // NaN і нескінченності - рядком, як у JMH: голі NaN/Infinity у JSON недійсні
+    private static String number(double v) {
+        return Double.isFinite(v) ? String.format(Locale.ROOT, "%.6f", v) : "\"" + v + "\"";
+    }
+
+    private static String json(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
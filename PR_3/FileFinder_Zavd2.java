@@ -1,8 +1,21 @@
-import java.io.IOException;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class FileFinder_Zavd2 {
 
@@ -24,83 +37,561 @@ public class FileFinder_Zavd2 {
         }
     }
 
+    private static int readThreads() {
+        try {
+            int threads = Integer.parseInt(readLine("Кількість потоків (натисніть Enter для автопідбору): "));
+            if (threads > 0) return threads;
+        } catch (Exception ignored) {
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     // -------------------- Збір файлів --------------------
 
-    private static List<Path> collectFiles(Path start, boolean recursive) throws IOException {
-        List<Path> files = new ArrayList<>();
+    // Запис про файл з атрибутами, прочитаними один раз під час обходу.
+    // Фільтр за розміром і звіт працюють лише з ним, без повторних Files.size().
+    static final class FileRecord {
+        final Path path;
+        final long size;
+        final long modifiedMillis;
+        final Object fileKey; // ідентичність фізичного файлу (inode); null - невідома, напр. запис з індексу
+
+        FileRecord(Path path, BasicFileAttributes attrs) {
+            this.path = path;
+            this.size = attrs.size();
+            this.modifiedMillis = attrs.lastModifiedTime().toMillis();
+            this.fileKey = attrs.fileKey();
+        }
+
+        FileRecord(Path path, long size, long modifiedMillis) {
+            this.path = path;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.fileKey = null;
+        }
+    }
+
+    // Запис для звичайного файлу або посилання на файл (розмір і час - з цілі), інакше null
+    static FileRecord fileRecord(Path entry, BasicFileAttributes attrs) {
+        if (attrs.isRegularFile()) return new FileRecord(entry, attrs);
+        if (attrs.isSymbolicLink()) {
+            try {
+                BasicFileAttributes target = Files.readAttributes(entry, BasicFileAttributes.class);
+                if (target.isRegularFile()) return new FileRecord(entry, target);
+            } catch (IOException ignored) {
+            }
+        }
+        return null;
+    }
+
+    static List<FileRecord> collectFiles(Path start, boolean recursive) throws IOException {
+        Queue<FileRecord> found = new ConcurrentLinkedQueue<>();
+        walk(start, recursive, found::add);
+        return new ArrayList<>(found);
+    }
+
+    // Злитий конвеєр: обхід + фільтр за один прохід. Повний список файлів не будується,
+    // у sink потрапляють лише збіги (з паралельних потоків - sink має бути потокобезпечним).
+    static void findLargeFiles(Path start, boolean recursive, long minBytes, Consumer<FileRecord> sink) throws IOException {
+        walk(start, recursive, r -> {
+            if (r.size >= minBytes) sink.accept(r);
+        });
+    }
 
+    static void walk(Path start, boolean recursive, Consumer<FileRecord> sink) throws IOException {
         if (!recursive) {
             try (DirectoryStream<Path> stream = Files.newDirectoryStream(start)) {
                 for (Path entry : stream) {
-                    if (Files.isRegularFile(entry)) {
-                        files.add(entry);
+                    try {
+                        // з переходом за посиланнями, як Files.isRegularFile
+                        BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                        if (attrs.isRegularFile()) sink.accept(new FileRecord(entry, attrs));
+                    } catch (IOException ignored) {
                     }
                 }
             }
-            return files;
+            return;
         }
 
-        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                if (Files.isRegularFile(file)) files.add(file);
-                return FileVisitResult.CONTINUE;
+        // Рекурсивний обхід - паралельно (див. DirectoryWalkTask)
+        ForkJoinPool walkPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors() * WALK_THREADS_PER_CPU);
+        try {
+            walkPool.invoke(new DirectoryWalkTask(start, sink));
+        } finally {
+            walkPool.shutdown();
+        }
+    }
+
+    // Паралельний обхід дерева: одна ForkJoin-задача на директорію, піддиректорії форкаються
+    // і їх розкрадають вільні потоки (work stealing), тож повільні гілки (мережеві ФС, великі
+    // піддерева) не блокують решту. Потоки здебільшого чекають на системні виклики ФС,
+    // тому пул більший за кількість ядер. Знайдені файли віддаються у sink одразу разом
+    // з атрибутами, які вже прочитано для перевірки типу, тож sink має бути потокобезпечним.
+    static final int WALK_THREADS_PER_CPU = 2;
+
+    static class DirectoryWalkTask extends RecursiveAction {
+        final Path dir;
+        final Consumer<FileRecord> sink;
+
+        DirectoryWalkTask(Path dir, Consumer<FileRecord> sink) {
+            this.dir = dir;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            // Перевіряємо доступ до директорії
+            if (!Files.isReadable(dir)) {
+                System.out.println("Пропущено директорію через відсутність доступу: " + dir);
+                return;
+            }
+
+            List<DirectoryWalkTask> subdirs = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        // як і walkFileTree - без переходу за символьними посиланнями
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        System.out.println("Не вдалося відкрити файл: " + entry);
+                        continue;
+                    }
+
+                    if (attrs.isDirectory()) {
+                        DirectoryWalkTask sub = new DirectoryWalkTask(entry, sink);
+                        sub.fork();
+                        subdirs.add(sub);
+                    } else {
+                        FileRecord r = fileRecord(entry, attrs);
+                        if (r != null) sink.accept(r);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                System.out.println("Не вдалося відкрити файл: " + dir);
+            }
+
+            for (DirectoryWalkTask sub : subdirs) sub.join();
+        }
+    }
+
+    // -------------------- Індекс метаданих --------------------
+
+    static final Path INDEX_FILE = Paths.get("FinderIndex.bin");
+
+    // Індекс шлях -> розмір/mtime, що зберігається на диску між запусками.
+    // Дані згруповано по директоріях: mtime директорії, імена піддиректорій і файли.
+    // При оновленні директорія перечитується лише тоді, коли змінився її mtime
+    // (файл створено, видалено чи перейменовано), інакше її записи беруться зі старого індексу.
+    // У піддиректорії заходимо завжди - їхні mtime незалежні, але це один stat на директорію
+    // замість читання вмісту і stat кожного файлу.
+    // Обмеження: зміна вмісту файлу на місці не змінює mtime директорії, тож новий розмір
+    // такого файлу потрапить в індекс лише після іншої зміни в його директорії.
+    //
+    // Формат (DataOutput, big-endian):
+    //   int MAGIC, int VERSION, UTF корінь, int кількість директорій, далі для кожної:
+    //   UTF шлях відносно кореня, long mtime, int n + n*UTF імена піддиректорій,
+    //   int m + m*(UTF ім'я, long розмір, long mtime) файли
+    static final class FinderIndex {
+        static final int MAGIC = 0x46494458; // "FIDX"
+        static final int VERSION = 1;
+
+        static final class DirEntry {
+            final long modifiedMillis;
+            final List<String> subdirs;
+            final List<FileRecord> files;
+
+            DirEntry(long modifiedMillis, List<String> subdirs, List<FileRecord> files) {
+                this.modifiedMillis = modifiedMillis;
+                this.subdirs = subdirs;
+                this.files = files;
+            }
+        }
+
+        final Path root;
+        final Map<Path, DirEntry> dirs;
+        final int listedDirs;   // перечитано при останньому оновленні
+        final int reusedDirs;   // взято зі старого індексу без змін
+
+        private FinderIndex(Path root, Map<Path, DirEntry> dirs, int listedDirs, int reusedDirs) {
+            this.root = root;
+            this.dirs = dirs;
+            this.listedDirs = listedDirs;
+            this.reusedDirs = reusedDirs;
+        }
+
+        boolean covers(Path start) {
+            return root.equals(start.toAbsolutePath().normalize());
+        }
+
+        List<FileRecord> files(boolean recursive) {
+            if (!recursive) {
+                DirEntry e = dirs.get(root);
+                return e == null ? new ArrayList<>() : new ArrayList<>(e.files);
+            }
+            List<FileRecord> all = new ArrayList<>();
+            for (DirEntry e : dirs.values()) all.addAll(e.files);
+            return all;
+        }
+
+        // Будує індекс для start; записи previous (якщо він для того ж кореня) перевикористовуються
+        static FinderIndex build(Path start, FinderIndex previous) throws IOException {
+            Path root = start.toAbsolutePath().normalize();
+            Map<Path, DirEntry> old = previous != null && previous.root.equals(root) ? previous.dirs : Collections.emptyMap();
+            Map<Path, DirEntry> dirs = new ConcurrentHashMap<>();
+            AtomicInteger listed = new AtomicInteger();
+            AtomicInteger reused = new AtomicInteger();
+
+            long rootMtime = Files.getLastModifiedTime(root).toMillis();
+            ForkJoinPool walkPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors() * WALK_THREADS_PER_CPU);
+            try {
+                walkPool.invoke(new IndexWalkTask(root, rootMtime, old, dirs, listed, reused));
+            } finally {
+                walkPool.shutdown();
+            }
+            return new FinderIndex(root, dirs, listed.get(), reused.get());
+        }
+
+        // Обхід як у DirectoryWalkTask, але незмінені директорії не перечитуються
+        private static class IndexWalkTask extends RecursiveAction {
+            final Path dir;
+            final long mtime;
+            final Map<Path, DirEntry> old, dirs;
+            final AtomicInteger listed, reused;
+
+            IndexWalkTask(Path dir, long mtime, Map<Path, DirEntry> old, Map<Path, DirEntry> dirs,
+                          AtomicInteger listed, AtomicInteger reused) {
+                this.dir = dir;
+                this.mtime = mtime;
+                this.old = old;
+                this.dirs = dirs;
+                this.listed = listed;
+                this.reused = reused;
+            }
+
+            private IndexWalkTask child(Path sub, BasicFileAttributes attrs) {
+                IndexWalkTask t = new IndexWalkTask(sub, attrs.lastModifiedTime().toMillis(), old, dirs, listed, reused);
+                t.fork();
+                return t;
             }
 
             @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                // Перевіряємо доступ до директорії
-                if (!Files.isReadable(dir)) {
+            protected void compute() {
+                List<IndexWalkTask> subtasks = new ArrayList<>();
+                DirEntry prev = old.get(dir);
+
+                if (prev != null && prev.modifiedMillis == mtime) {
+                    reused.incrementAndGet();
+                    dirs.put(dir, prev);
+                    for (String name : prev.subdirs) {
+                        Path sub = dir.resolve(name);
+                        try {
+                            BasicFileAttributes attrs = Files.readAttributes(sub, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                            if (attrs.isDirectory()) subtasks.add(child(sub, attrs));
+                        } catch (IOException e) {
+                            System.out.println("Не вдалося відкрити файл: " + sub);
+                        }
+                    }
+                } else if (!Files.isReadable(dir)) {
                     System.out.println("Пропущено директорію через відсутність доступу: " + dir);
-                    return FileVisitResult.SKIP_SUBTREE;
+                } else {
+                    listed.incrementAndGet();
+                    List<String> subdirNames = new ArrayList<>();
+                    List<FileRecord> files = new ArrayList<>();
+                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                        for (Path entry : stream) {
+                            BasicFileAttributes attrs;
+                            try {
+                                attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                            } catch (IOException e) {
+                                System.out.println("Не вдалося відкрити файл: " + entry);
+                                continue;
+                            }
+
+                            if (attrs.isDirectory()) {
+                                subdirNames.add(entry.getFileName().toString());
+                                subtasks.add(child(entry, attrs));
+                            } else {
+                                FileRecord r = fileRecord(entry, attrs);
+                                if (r != null) files.add(r);
+                            }
+                        }
+                        // лише повністю прочитана директорія потрапляє в індекс,
+                        // інакше наступне оновлення прийняло б неповний список за актуальний
+                        dirs.put(dir, new DirEntry(mtime, subdirNames, files));
+                    } catch (IOException | DirectoryIteratorException e) {
+                        System.out.println("Не вдалося відкрити файл: " + dir);
+                    }
+                }
+
+                for (IndexWalkTask t : subtasks) t.join();
+            }
+        }
+
+        void save(Path file) throws IOException {
+            // спочатку у тимчасовий файл, щоб обірваний запис не зіпсував попередній індекс
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(root.toString());
+                out.writeInt(dirs.size());
+                for (Map.Entry<Path, DirEntry> d : dirs.entrySet()) {
+                    DirEntry e = d.getValue();
+                    out.writeUTF(root.relativize(d.getKey()).toString());
+                    out.writeLong(e.modifiedMillis);
+                    out.writeInt(e.subdirs.size());
+                    for (String name : e.subdirs) out.writeUTF(name);
+                    out.writeInt(e.files.size());
+                    for (FileRecord r : e.files) {
+                        out.writeUTF(r.path.getFileName().toString());
+                        out.writeLong(r.size);
+                        out.writeLong(r.modifiedMillis);
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // null, якщо файлу немає, він не є індексом цієї версії або обрізаний чи пошкоджений
+        static FinderIndex load(Path file) {
+            if (!Files.exists(file)) return null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    System.out.println("Файл " + file + " не є індексом поточної версії - його буде перебудовано.");
+                    return null;
+                }
+                // кожен запис займає у файлі хоча б байт, тож лічильник, більший за розмір файлу, - сміття
+                long limit = Files.size(file);
+                Path root = Paths.get(in.readUTF());
+                int dirCount = count(in, limit);
+                Map<Path, DirEntry> dirs = new HashMap<>(dirCount * 2);
+                for (int i = 0; i < dirCount; i++) {
+                    Path dir = root.resolve(in.readUTF());
+                    long mtime = in.readLong();
+                    int n = count(in, limit);
+                    List<String> subdirs = new ArrayList<>(n);
+                    for (int j = 0; j < n; j++) subdirs.add(in.readUTF());
+                    int m = count(in, limit);
+                    List<FileRecord> files = new ArrayList<>(m);
+                    for (int j = 0; j < m; j++) {
+                        Path path = dir.resolve(in.readUTF());
+                        files.add(new FileRecord(path, in.readLong(), in.readLong()));
+                    }
+                    dirs.put(dir, new DirEntry(mtime, subdirs, files));
+                }
+                return new FinderIndex(root, dirs, 0, dirCount);
+            } catch (IOException | InvalidPathException e) {
+                // EOFException, UTFDataFormatException, биті шляхи - файл перезапишеться після перебудови
+                System.out.println("Файл " + file + " пошкоджено (" + e + ") - його буде перебудовано.");
+                return null;
+            }
+        }
+
+        private static int count(DataInputStream in, long limit) throws IOException {
+            int n = in.readInt();
+            if (n < 0 || n > limit) throw new IOException("недійсна кількість записів: " + n);
+            return n;
+        }
+    }
+
+    // -------------------- Індекс за розміром --------------------
+
+    // Колонкове представлення зібраних метаданих: sizes[] відсортовано за спаданням,
+    // ids[i] - номер запису з розміром sizes[i]. Запит "файли >= N" - двійковий пошук
+    // і префікс масиву, top-K - перші K елементів, гістограма log2 - по одному
+    // двійковому пошуку на межу кошика. Файлову систему більше не чіпаємо.
+    static final class SizeIndex {
+        static final int SORT_THRESHOLD = 8192;
+
+        final FileRecord[] records;
+        final long[] sizes;
+        final int[] ids;
+
+        private SizeIndex(FileRecord[] records, long[] sizes, int[] ids) {
+            this.records = records;
+            this.sizes = sizes;
+            this.ids = ids;
+        }
+
+        static SizeIndex of(List<FileRecord> files) {
+            int n = files.size();
+            FileRecord[] records = files.toArray(new FileRecord[0]);
+            long[] byId = new long[n];
+            int[] ids = new int[n];
+            for (int i = 0; i < n; i++) {
+                byId[i] = records[i].size;
+                ids[i] = i;
+            }
+            ForkJoinPool.commonPool().invoke(new SortTask(byId, ids, new int[n], 0, n));
+
+            long[] sizes = new long[n];
+            for (int i = 0; i < n; i++) sizes[i] = byId[ids[i]];
+            return new SizeIndex(records, sizes, ids);
+        }
+
+        int size() {
+            return sizes.length;
+        }
+
+        // Кількість файлів з розміром >= minBytes (перший індекс, де розмір менший за поріг)
+        int countAtLeast(long minBytes) {
+            int lo = 0, hi = sizes.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sizes[mid] >= minBytes) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        List<FileRecord> atLeast(long minBytes) {
+            return slice(countAtLeast(minBytes));
+        }
+
+        List<FileRecord> top(int k) {
+            return slice(Math.min(k, sizes.length));
+        }
+
+        private List<FileRecord> slice(int count) {
+            List<FileRecord> out = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) out.add(records[ids[i]]);
+            return out;
+        }
+
+        // hist[0] - порожні файли, hist[b] - розміри з [2^(b-1), 2^b)
+        long[] log2Histogram() {
+            long[] hist = new long[65];
+            int prev = 0;
+            for (int b = 64; b >= 1; b--) {
+                // файли з розміром >= 2^(b-1); для b = 64 межа 2^63 виходить за long
+                int atLeast = b == 64 ? 0 : countAtLeast(1L << (b - 1));
+                hist[b] = atLeast - prev;
+                prev = atLeast;
+            }
+            hist[0] = sizes.length - prev;
+            return hist;
+        }
+
+        // Сумарний розмір і кількість файлів по директоріях (з усіма вкладеними) до root включно
+        Map<Path, long[]> directoryTotals(Path root) {
+            Map<Path, long[]> totals = new HashMap<>();
+            for (FileRecord r : records) {
+                for (Path d = r.path.getParent(); d != null; d = d.getParent()) {
+                    long[] t = totals.computeIfAbsent(d, k -> new long[2]);
+                    t[0]++;
+                    t[1] += r.size;
+                    if (d.equals(root)) break;
                 }
-                return FileVisitResult.CONTINUE;
+            }
+            return totals;
+        }
+
+        // Паралельне сортування злиттям номерів записів за спаданням розміру.
+        // Сортуються примітиви int[] з ключами у long[], без упаковки в об'єкти.
+        private static class SortTask extends RecursiveAction {
+            final long[] keys;
+            final int[] a, tmp;
+            final int lo, hi;
+
+            SortTask(long[] keys, int[] a, int[] tmp, int lo, int hi) {
+                this.keys = keys;
+                this.a = a;
+                this.tmp = tmp;
+                this.lo = lo;
+                this.hi = hi;
             }
 
             @Override
-            public FileVisitResult visitFileFailed(Path file, IOException exc) {
-                System.out.println("Не вдалося відкрити файл: " + file);
-                return FileVisitResult.CONTINUE;
+            protected void compute() {
+                if (hi - lo <= SORT_THRESHOLD) {
+                    sort(keys, a, tmp, lo, hi);
+                    return;
+                }
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SortTask(keys, a, tmp, lo, mid), new SortTask(keys, a, tmp, mid, hi));
+                merge(keys, a, tmp, lo, mid, hi);
             }
-        });
-        return files;
+
+            static void sort(long[] keys, int[] a, int[] tmp, int lo, int hi) {
+                if (hi - lo <= 32) {
+                    for (int i = lo + 1; i < hi; i++) {
+                        int v = a[i];
+                        int j = i - 1;
+                        while (j >= lo && keys[a[j]] < keys[v]) {
+                            a[j + 1] = a[j];
+                            j--;
+                        }
+                        a[j + 1] = v;
+                    }
+                    return;
+                }
+                int mid = (lo + hi) >>> 1;
+                sort(keys, a, tmp, lo, mid);
+                sort(keys, a, tmp, mid, hi);
+                merge(keys, a, tmp, lo, mid, hi);
+            }
+
+            static void merge(long[] keys, int[] a, int[] tmp, int lo, int mid, int hi) {
+                if (keys[a[mid - 1]] >= keys[a[mid]]) return; // половини вже впорядковані
+                System.arraycopy(a, lo, tmp, lo, hi - lo);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) a[k++] = keys[tmp[j]] > keys[tmp[i]] ? tmp[j++] : tmp[i++];
+                while (i < mid) a[k++] = tmp[i++];
+                while (j < hi) a[k++] = tmp[j++];
+            }
+        }
+    }
+
+    static String humanSize(long bytes) {
+        String[] units = {"Б", "КБ", "МБ", "ГБ", "ТБ", "ПБ", "ЕБ"};
+        int u = 0;
+        double v = bytes;
+        while (v >= 1024 && u < units.length - 1) {
+            v /= 1024;
+            u++;
+        }
+        return u == 0 ? bytes + " Б" : String.format("%.1f %s", v, units[u]);
     }
 
     // -------------------- Work Stealing --------------------
 
-    static class FileCountTask extends RecursiveTask<List<Path>> {
-        private static final int THRESHOLD = 100;
-        final List<Path> list;
+    static class FileCountTask extends RecursiveTask<List<FileRecord>> {
+        static final int THRESHOLD = 100;
+        final List<FileRecord> list;
         final int s, e;
         final long minBytes;
+        final int threshold;
+
+        FileCountTask(List<FileRecord> list, int s, int e, long minBytes) {
+            this(list, s, e, minBytes, THRESHOLD);
+        }
 
-        FileCountTask(List<Path> list, int s, int e, long minBytes) {
+        FileCountTask(List<FileRecord> list, int s, int e, long minBytes, int threshold) {
             this.list = list;
             this.s = s;
             this.e = e;
             this.minBytes = minBytes;
+            this.threshold = threshold;
         }
 
         @Override
-        protected List<Path> compute() {
+        protected List<FileRecord> compute() {
             int len = e - s;
-            if (len <= THRESHOLD) {
-                List<Path> res = new ArrayList<>();
+            if (len <= threshold) {
+                List<FileRecord> res = new ArrayList<>();
                 for (int i = s; i < e; i++) {
-                    Path p = list.get(i);
-                    try {
-                        if (Files.size(p) >= minBytes) res.add(p);
-                    } catch (IOException ignored) {
-                    }
+                    FileRecord r = list.get(i);
+                    if (r.size >= minBytes) res.add(r);
                 }
                 return res;
             } else {
                 int mid = s + len / 2;
-                FileCountTask left = new FileCountTask(list, s, mid, minBytes);
-                FileCountTask right = new FileCountTask(list, mid, e, minBytes);
+                FileCountTask left = new FileCountTask(list, s, mid, minBytes, threshold);
+                FileCountTask right = new FileCountTask(list, mid, e, minBytes, threshold);
                 left.fork();
-                List<Path> rr = right.compute();
-                List<Path> lr = left.join();
+                List<FileRecord> rr = right.compute();
+                List<FileRecord> lr = left.join();
                 lr.addAll(rr);
                 return lr;
             }
@@ -109,31 +600,28 @@ public class FileFinder_Zavd2 {
 
     // -------------------- Work Dealing --------------------
 
-    private static List<Path> countWithFixedPool(List<Path> files, int workers, long minBytes) throws InterruptedException {
+    static List<FileRecord> countWithFixedPool(List<FileRecord> files, int workers, long minBytes) throws InterruptedException {
         int n = files.size();
-        List<List<Path>> parts = new ArrayList<>();
+        List<List<FileRecord>> parts = new ArrayList<>();
         for (int i = 0; i < workers; i++) parts.add(new ArrayList<>());
         for (int i = 0; i < n; i++) parts.get(i % workers).add(files.get(i));
 
         ExecutorService ex = Executors.newFixedThreadPool(workers);
-        List<Future<List<Path>>> futures = new ArrayList<>();
+        List<Future<List<FileRecord>>> futures = new ArrayList<>();
 
         for (int w = 0; w < workers; w++) {
-            final List<Path> part = parts.get(w);
+            final List<FileRecord> part = parts.get(w);
             futures.add(ex.submit(() -> {
-                List<Path> out = new ArrayList<>();
-                for (Path p : part) {
-                    try {
-                        if (Files.size(p) >= minBytes) out.add(p);
-                    } catch (IOException ignored) {
-                    }
+                List<FileRecord> out = new ArrayList<>();
+                for (FileRecord r : part) {
+                    if (r.size >= minBytes) out.add(r);
                 }
                 return out;
             }));
         }
 
-        List<Path> result = new ArrayList<>();
-        for (Future<List<Path>> f : futures) {
+        List<FileRecord> result = new ArrayList<>();
+        for (Future<List<FileRecord>> f : futures) {
             try {
                 result.addAll(f.get());
             } catch (ExecutionException e) {
@@ -146,17 +634,565 @@ public class FileFinder_Zavd2 {
         return result;
     }
 
+    // -------------------- Обробка вмісту файлів --------------------
+
+    // Спільне для пошуку дублікатів і пошуку за вмістом: action(i) виконується для кожного
+    // файлу files[i] на вибраному виконавці - ForkJoin (Work Stealing) або FixedPool (Work Dealing).
+    static void forEachFile(List<FileRecord> files, boolean workStealing, int threads,
+                            ToLongFunction<FileRecord> cost, IntConsumer action) throws InterruptedException {
+        if (files.isEmpty()) return;
+        if (!workStealing) {
+            forEachWithFixedPool(files, threads, action);
+            return;
+        }
+        ForkJoinPool fj = new ForkJoinPool(threads);
+        try {
+            fj.invoke(new PerFileTask(files, 0, files.size(), cost, action));
+        } finally {
+            fj.shutdown();
+        }
+    }
+
+    // Work Stealing: ділимо, доки в листі не лишиться мало файлів і мало байтів (за cost),
+    // тож один великий файл не тримає за собою цілу пачку дрібних
+    static class PerFileTask extends RecursiveAction {
+        static final int FILES_PER_LEAF = 16;
+        static final long BYTES_PER_LEAF = 16L << 20;
+
+        final List<FileRecord> files;
+        final int s, e;
+        final ToLongFunction<FileRecord> cost;
+        final IntConsumer action;
+
+        PerFileTask(List<FileRecord> files, int s, int e, ToLongFunction<FileRecord> cost, IntConsumer action) {
+            this.files = files;
+            this.s = s;
+            this.e = e;
+            this.cost = cost;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            long bytes = 0;
+            for (int i = s; i < e; i++) bytes += cost.applyAsLong(files.get(i));
+
+            if (e - s == 1 || (e - s <= FILES_PER_LEAF && bytes <= BYTES_PER_LEAF)) {
+                for (int i = s; i < e; i++) action.accept(i);
+                return;
+            }
+            int mid = s + (e - s) / 2;
+            invokeAll(new PerFileTask(files, s, mid, cost, action), new PerFileTask(files, mid, e, cost, action));
+        }
+    }
+
+    // Work Dealing: файли роздаються потокам по колу, як у countWithFixedPool
+    static void forEachWithFixedPool(List<FileRecord> files, int workers, IntConsumer action) throws InterruptedException {
+        ExecutorService ex = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            final int first = w;
+            futures.add(ex.submit(() -> {
+                for (int i = first; i < files.size(); i += workers) action.accept(i);
+            }));
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        ex.shutdown();
+        ex.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    // -------------------- Пошук дублікатів --------------------
+
+    // Дублікати шукаються поетапно, кожен етап відсіює кандидатів для дорожчого наступного:
+    //  1) групування за розміром (без читання файлів) - лишаються групи з 2+ файлів; посилання
+    //     і жорсткі посилання на той самий файл зводяться до одного імені, щоб не хешувати його двічі;
+    //  2) SHA-256 перших PREFIX_BYTES - різні файли однакового розміру зазвичай різняться вже на початку;
+    //  3) SHA-256 усього вмісту через memory-mapped вікна - лише для файлів більших за PREFIX_BYTES
+    //     (для менших хеш префікса вже є хешем усього файлу).
+    // Етапи 2 і 3 хешують паралельно: ForkJoin (Work Stealing) або FixedPool (Work Dealing).
+    static final int PREFIX_BYTES = 4096;
+    static final long MAP_WINDOW = 64L << 20;
+    static final Path DUPLICATES_FILE = Paths.get("DuplicatesResult.txt");
+
+    static final class DuplicateGroup {
+        final long size;
+        final String hash;
+        final List<FileRecord> files;
+
+        DuplicateGroup(long size, String hash, List<FileRecord> files) {
+            this.size = size;
+            this.hash = hash;
+            this.files = files;
+        }
+
+        long wastedBytes() {
+            return size * (files.size() - 1);
+        }
+    }
+
+    static byte[] sha256(Path p, boolean prefixOnly) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 є у кожній JVM
+        }
+
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (prefixOnly || size <= PREFIX_BYTES) {
+                // для 4 КБ відображення у пам'ять дорожче за звичайне читання
+                ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size, PREFIX_BYTES));
+                while (buf.hasRemaining() && ch.read(buf) >= 0) {
+                }
+                buf.flip();
+                md.update(buf);
+            } else {
+                for (long pos = 0; pos < size; pos += MAP_WINDOW) {
+                    MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, size - pos));
+                    md.update(window);
+                }
+            }
+        }
+        return md.digest();
+    }
+
+    private static String hashOrNull(FileRecord r, boolean prefixOnly) {
+        try {
+            return HexFormat.of().formatHex(sha256(r.path, prefixOnly));
+        } catch (IOException e) {
+            System.out.println("Не вдалося відкрити файл: " + r.path);
+            return null;
+        }
+    }
+
+    static String[] hashAll(List<FileRecord> files, boolean prefixOnly, boolean workStealing, int threads) throws InterruptedException {
+        String[] hashes = new String[files.size()];
+        forEachFile(files, workStealing, threads,
+                prefixOnly ? r -> Math.min(r.size, PREFIX_BYTES) : r -> r.size,
+                i -> hashes[i] = hashOrNull(files.get(i), prefixOnly));
+        return hashes;
+    }
+
+    // Групи з 2+ файлів з однаковим (розмір, хеш); файли без хешу (помилка читання) відкидаються
+    private static List<List<FileRecord>> regroup(List<FileRecord> files, String[] hashes, Map<List<FileRecord>, String> groupHash) {
+        Map<String, List<FileRecord>> byKey = new HashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (hashes[i] == null) continue;
+            FileRecord r = files.get(i);
+            List<FileRecord> g = byKey.computeIfAbsent(r.size + ":" + hashes[i], k -> new ArrayList<>());
+            if (g.isEmpty()) groupHash.put(g, hashes[i]);
+            g.add(r);
+        }
+        List<List<FileRecord>> groups = new ArrayList<>();
+        for (List<FileRecord> g : byKey.values()) if (g.size() > 1) groups.add(g);
+        return groups;
+    }
+
+    static List<DuplicateGroup> findDuplicates(List<FileRecord> files, long minBytes, boolean workStealing, int threads)
+            throws InterruptedException {
+        // 1) розмір; порожні файли не займають місця - їх не рахуємо
+        Map<Long, List<FileRecord>> bySize = new HashMap<>();
+        for (FileRecord r : files) {
+            if (r.size > 0 && r.size >= minBytes) bySize.computeIfAbsent(r.size, k -> new ArrayList<>()).add(r);
+        }
+        // посилання і жорсткі посилання на той самий файл - не дублікати: одне ім'я на фізичний файл
+        List<FileRecord> candidates = new ArrayList<>();
+        for (List<FileRecord> g : bySize.values()) {
+            if (g.size() < 2) continue;
+            Set<Object> seen = new HashSet<>();
+            List<FileRecord> unique = new ArrayList<>();
+            for (FileRecord r : g) {
+                Object key = identity(r);
+                if (key != null && seen.add(key)) unique.add(r);
+            }
+            if (unique.size() > 1) candidates.addAll(unique);
+        }
+
+        // 2) префікс
+        Map<List<FileRecord>, String> groupHash = new IdentityHashMap<>();
+        String[] prefixHashes = hashAll(candidates, true, workStealing, threads);
+        List<DuplicateGroup> result = new ArrayList<>();
+        List<FileRecord> large = new ArrayList<>();
+        for (List<FileRecord> g : regroup(candidates, prefixHashes, groupHash)) {
+            if (g.get(0).size <= PREFIX_BYTES) result.add(new DuplicateGroup(g.get(0).size, groupHash.get(g), g));
+            else large.addAll(g);
+        }
+
+        // 3) увесь вміст
+        String[] fullHashes = hashAll(large, false, workStealing, threads);
+        for (List<FileRecord> g : regroup(large, fullHashes, groupHash)) {
+            result.add(new DuplicateGroup(g.get(0).size, groupHash.get(g), g));
+        }
+
+        result.sort((a, b) -> Long.compare(b.wastedBytes(), a.wastedBytes()));
+        return result;
+    }
+
+    // fileKey з обходу; для записів з індексу (або ФС без fileKey) - з атрибутів чи реального шляху.
+    // null - файл недоступний, його пропускаємо
+    private static Object identity(FileRecord r) {
+        if (r.fileKey != null) return r.fileKey;
+        try {
+            Object key = Files.readAttributes(r.path, BasicFileAttributes.class).fileKey();
+            return key != null ? key : r.path.toRealPath();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void runDuplicateMode(Path start, boolean recursive) throws Exception {
+        long kb = readLong("Мінімальний розмір файлу у КБ (0 - усі непорожні): ");
+        if (kb < 0) kb = 0;
+
+        String strategy = readLine("Стратегія хешування: 1 - Work Stealing (ForkJoin), 2 - Work Dealing (FixedPool): ");
+        boolean workStealing = !strategy.equals("2");
+        int threads = readThreads();
+
+        readLine("\nГотові? Натисніть Enter...");
+
+        long t0 = System.nanoTime();
+        List<FileRecord> allFiles = collectFiles(start, recursive);
+        long t1 = System.nanoTime();
+        List<DuplicateGroup> groups = findDuplicates(allFiles, kb * 1024, workStealing, threads);
+        long t2 = System.nanoTime();
+
+        long wasted = 0, dupFiles = 0;
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(DUPLICATES_FILE), StandardCharsets.UTF_8), ReportWriter.BUFFER_SIZE)) {
+            for (DuplicateGroup g : groups) {
+                wasted += g.wastedBytes();
+                dupFiles += g.files.size();
+                out.write(String.format("%d файлів по %s (зайве: %s)  SHA-256 %s%n",
+                        g.files.size(), humanSize(g.size), humanSize(g.wastedBytes()), g.hash));
+                for (FileRecord r : g.files) out.write("    " + r.path + "\n");
+            }
+            out.write("============================\n");
+            out.write(String.format("Груп дублікатів: %d, файлів у них: %d, зайве місце: %s%n", groups.size(), dupFiles, humanSize(wasted)));
+            out.write(String.format("Збір файлів: %.3f ms, пошук дублікатів (%s, потоків: %d): %.3f ms%n",
+                    (t1 - t0) / 1_000_000.0, workStealing ? "Work Stealing" : "Work Dealing", threads, (t2 - t1) / 1_000_000.0));
+        }
+
+        System.out.printf("%nПереглянуто %d файлів. Груп дублікатів: %d, зайве місце: %s%n", allFiles.size(), groups.size(), humanSize(wasted));
+        System.out.printf("Збір файлів: %.3f ms, пошук дублікатів: %.3f ms%n", (t1 - t0) / 1_000_000.0, (t2 - t1) / 1_000_000.0);
+        System.out.println("Результати записано у " + DUPLICATES_FILE);
+
+        String show = readLine("Хочете вивести результати тут? Y/N: ");
+        if (show.equalsIgnoreCase("Y")) {
+            System.out.println();
+            pageFile(DUPLICATES_FILE);
+        }
+    }
+
+    // -------------------- Пошук за вмістом (grep) --------------------
+
+    // Файл читається memory-mapped вікнами до MAP_WINDOW, кожне вікно обрізається по останньому
+    // '\n', тож рядок (а з ним і збіг) не розривається між вікнами - крім рядків, довших за вікно.
+    // Літерал шукається алгоритмом Бойєра-Мура-Хорспула по байтах UTF-8 шаблону.
+    // Регулярний вираз застосовується до кожного рядка через подання байтів як ISO-8859-1
+    // (байт = символ, без декодування і копіювання); сам шаблон переводиться у те ж подання.
+    // Тобто це regex по байтах: літеральні не-ASCII символи у шаблоні працюють (як послідовність
+    // своїх байтів UTF-8), але '.', класи символів і CASE_INSENSITIVE бачать окремі байти, а не
+    // символи - [а-я] не знайде кирилицю, а '.' відповідає одному байту двобайтової літери.
+    // В обох режимах звітується кожен збіг (без перекриття), а не лише перший у рядку,
+    // тож кількість збігів і --max-hits означають одне й те саме; порожні збіги regex
+    // (напр. ^$) рахуються лише на початку рядка.
+    static final Path GREP_FILE = Paths.get("GrepResult.txt");
+    static final int SNIPPET_BYTES = 200;
+
+    static final class GrepQuery {
+        final byte[] literal;   // null, якщо шукаємо regex
+        final int[] skip;
+        final Pattern regex;
+        final long maxHits;     // 0 - без обмеження
+        final ReportWriter out;
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong scannedBytes = new AtomicLong();
+        volatile boolean stopped;
+
+        GrepQuery(String pattern, boolean isRegex, long maxHits, ReportWriter out) {
+            byte[] bytes = pattern.getBytes(StandardCharsets.UTF_8);
+            this.maxHits = maxHits;
+            this.out = out;
+            if (isRegex) {
+                literal = null;
+                skip = null;
+                regex = Pattern.compile(new String(bytes, StandardCharsets.ISO_8859_1), Pattern.UNIX_LINES); // рядки ділимо лише по \n
+            } else {
+                literal = bytes;
+                regex = null;
+                // таблиця зсувів Хорспула: на скільки можна зсунутись за останнім байтом вікна
+                skip = new int[256];
+                Arrays.fill(skip, bytes.length);
+                for (int j = 0; j < bytes.length - 1; j++) skip[bytes[j] & 0xFF] = bytes.length - 1 - j;
+            }
+        }
+
+        long reportedHits() {
+            return maxHits > 0 ? Math.min(hits.get(), maxHits) : hits.get();
+        }
+
+        void scan(FileRecord r) {
+            if (stopped || r.size == 0) return;
+            try (FileChannel ch = FileChannel.open(r.path, StandardOpenOption.READ)) {
+                long size = ch.size();
+                long pos = 0, line = 1;
+                while (pos < size && !stopped) {
+                    int len = (int) Math.min(MAP_WINDOW, size - pos);
+                    MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                    int end = len;
+                    if (pos + len < size) {
+                        int nl = len - 1;
+                        while (nl >= 0 && buf.get(nl) != '\n') nl--;
+                        if (nl >= 0) end = nl + 1;
+                    }
+                    line = literal != null ? scanLiteral(r.path, buf, end, pos, line) : scanRegex(r.path, buf, end, pos, line);
+                    scannedBytes.addAndGet(end);
+                    pos += end;
+                }
+            } catch (IOException e) {
+                System.out.println("Не вдалося відкрити файл: " + r.path);
+            }
+        }
+
+        // Повертає номер рядка на кінці вікна
+        private long scanLiteral(Path path, ByteBuffer buf, int end, long base, long line) {
+            int m = literal.length;
+            int cursor = 0, lineStart = 0; // рядки рахуються ліниво - лише до чергового збігу
+            int i = 0;
+            while (i + m <= end && !stopped) {
+                byte last = buf.get(i + m - 1);
+                if (last == literal[m - 1] && matchesAt(buf, i)) {
+                    for (; cursor < i; cursor++) {
+                        if (buf.get(cursor) == '\n') {
+                            line++;
+                            lineStart = cursor + 1;
+                        }
+                    }
+                    emit(path, line, base + i, buf, lineStart, end);
+                    i += m;
+                } else {
+                    i += skip[last & 0xFF];
+                }
+            }
+            for (; cursor < end; cursor++) if (buf.get(cursor) == '\n') line++;
+            return line;
+        }
+
+        private boolean matchesAt(ByteBuffer buf, int i) {
+            for (int j = literal.length - 2; j >= 0; j--) if (buf.get(i + j) != literal[j]) return false;
+            return true;
+        }
+
+        private long scanRegex(Path path, ByteBuffer buf, int end, long base, long line) {
+            Matcher mt = regex.matcher(new Latin1View(buf, end));
+            int ls = 0;
+            while (ls < end && !stopped) {
+                int le = ls;
+                while (le < end && buf.get(le) != '\n') le++;
+                int contentEnd = le > ls && buf.get(le - 1) == '\r' ? le - 1 : le;
+                mt.region(ls, contentEnd);
+                while (!stopped && mt.find()) {
+                    if (mt.end() > mt.start() || mt.start() == ls) emit(path, line, base + mt.start(), buf, ls, end);
+                }
+                line++;
+                ls = le + 1;
+            }
+            return line;
+        }
+
+        private void emit(Path path, long line, long offset, ByteBuffer buf, int lineStart, int end) {
+            long n = hits.incrementAndGet();
+            if (maxHits > 0 && n > maxHits) {
+                stopped = true;
+                return;
+            }
+            int le = lineStart;
+            while (le < end && le - lineStart < SNIPPET_BYTES && buf.get(le) != '\n' && buf.get(le) != '\r') le++;
+            // обрізали посеред символу UTF-8 - відступаємо до його першого байта
+            while (le > lineStart && le < end && (buf.get(le) & 0xC0) == 0x80) le--;
+            byte[] snippet = new byte[le - lineStart];
+            buf.get(lineStart, snippet);
+            out.write(path + ":" + line + ":" + offset + ": " + new String(snippet, StandardCharsets.UTF_8) + "\n");
+            if (maxHits > 0 && n == maxHits) stopped = true;
+        }
+    }
+
+    // Байти вікна як символи ISO-8859-1 - для Matcher без копіювання у String
+    static final class Latin1View implements CharSequence {
+        final ByteBuffer buf;
+        final int length;
+
+        Latin1View(ByteBuffer buf, int length) {
+            this.buf = buf;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buf.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            byte[] b = new byte[end - start];
+            buf.get(start, b);
+            return new String(b, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+
+    private static void runGrepMode(Path start, boolean recursive) throws Exception {
+        String pattern = readLine("Що шукати: ");
+        if (pattern.isEmpty()) {
+            System.out.println("Порожній шаблон.");
+            return;
+        }
+        boolean isRegex = readLine("Це регулярний вираз (по байтах UTF-8: '.' і [класи] - один байт)? Y/N: ").equalsIgnoreCase("Y");
+        long maxHits = readLong("Зупинитися після N збігів (0 - шукати всі): ");
+
+        String strategy = readLine("Стратегія: 1 - Work Stealing (ForkJoin), 2 - Work Dealing (FixedPool): ");
+        boolean workStealing = !strategy.equals("2");
+        int threads = readThreads();
+
+        readLine("\nГотові? Натисніть Enter...");
+
+        long t0 = System.nanoTime();
+        List<FileRecord> allFiles = collectFiles(start, recursive);
+        long t1 = System.nanoTime();
+
+        GrepQuery query;
+        try (ReportWriter report = new ReportWriter(GREP_FILE, "Збіги \"" + pattern + "\" (файл:рядок:зсув):\n\n")) {
+            query = new GrepQuery(pattern, isRegex, Math.max(0, maxHits), report);
+            forEachFile(allFiles, workStealing, threads, r -> r.size, i -> query.scan(allFiles.get(i)));
+        } catch (IOException e) {
+            System.out.println("Помилка запису у файл " + GREP_FILE);
+            return;
+        }
+        long t2 = System.nanoTime();
+
+        double scanMs = (t2 - t1) / 1_000_000.0;
+        System.out.printf("%nПереглянуто %d файлів, прочитано %s. Збігів: %d%s%n", allFiles.size(),
+                humanSize(query.scannedBytes.get()), query.reportedHits(), query.stopped ? " (зупинено на ліміті)" : "");
+        System.out.printf("Збір файлів: %.3f ms, пошук (%s, потоків: %d): %.3f ms%n", (t1 - t0) / 1_000_000.0,
+                workStealing ? "Work Stealing" : "Work Dealing", threads, scanMs);
+        System.out.println("Результати записано у " + GREP_FILE);
+
+        String show = readLine("Хочете вивести результати тут? Y/N: ");
+        if (show.equalsIgnoreCase("Y")) {
+            System.out.println();
+            pageFile(GREP_FILE);
+        }
+    }
+
     // -------------------- Запис результатів --------------------
 
-    private static void writeResultsToFile(
+    static final int TOP_K = 10;
+    static final Path RESULT_FILE = Paths.get("FinderResult.txt");
+
+    // Потоковий звіт: збіги дописуються у буферизований файл одразу, як їх знайдено
+    // (з потоків обходу, тому запис синхронізовано), підсумок - наприкінці.
+    // У пам'яті лише буфер запису, скільки б файлів не знайшлося.
+    static final class ReportWriter implements Closeable {
+        static final int BUFFER_SIZE = 1 << 16;
+
+        private final Writer out;
+        private long matches;
+        private IOException error;
+
+        ReportWriter(Path file, long minKB) throws IOException {
+            this(file, "Знайдені файли > " + minKB + " КБ:\n\n");
+        }
+
+        ReportWriter(Path file, String header) throws IOException {
+            out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+            out.write(header);
+        }
+
+        synchronized void match(FileRecord r) {
+            if (error != null) return;
+            long kbsz = (r.size + 1023) / 1024;
+            try {
+                out.write(r.path.getFileName().toString());
+                out.write("  |  ");
+                out.write(Long.toString(kbsz));
+                out.write(" КБ\n");
+                matches++;
+            } catch (IOException e) {
+                error = e; // з потоку обходу не кидаємо - повідомимо при закритті
+            }
+        }
+
+        synchronized long matches() {
+            return matches;
+        }
+
+        synchronized void write(CharSequence text) {
+            if (error != null) return;
+            try {
+                out.append(text);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (error == null) error = e;
+            }
+            if (error != null) throw error;
+        }
+    }
+
+    // Посторінковий вивід файлу в консоль: читається рядок за рядком, не цілим файлом
+    static final int PAGE_LINES = 40;
+
+    static void pageFile(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int printed = 0;
+            while ((line = in.readLine()) != null) {
+                System.out.println(line);
+                if (++printed % PAGE_LINES == 0) {
+                    String cmd = readLine("-- Enter - далі, Q - вихід --");
+                    if (cmd.equalsIgnoreCase("Q")) return;
+                }
+            }
+        }
+    }
+
+    private static void writeSummary(
+            ReportWriter report,
             double collectTime,
             double wtProcess, double wtTotal,
             double wdProcess, double wdTotal,
-            long minKB, int threads,
-            List<Path> matched
+            double fusedTime,
+            SizeIndex sizeIndex, Path root, double siBuild, double siQuery,
+            int threads
     ) {
+        // підсумок невеликий (без списку збігів), тож збирається у пам'яті
         StringBuilder sb = new StringBuilder();
 
+        sb.append("\n============================\n");
+        sb.append("Знайдено файлів: ").append(report.matches()).append("\n");
         sb.append("============================\n");
         sb.append("       FILE COLLECTING\n");
         sb.append("============================\n");
@@ -175,6 +1211,39 @@ public class FileFinder_Zavd2 {
         sb.append(String.format("Час обробки (FixedPool): %.3f ms%n", wdProcess));
         sb.append(String.format("Загальний час: %.3f ms%n", wdTotal));
 
+        sb.append("============================\n");
+        sb.append("   Fused (обхід + фільтр)\n");
+        sb.append("============================\n");
+        sb.append(String.format("Загальний час (з записом звіту): %.3f ms%n", fusedTime));
+        sb.append(String.format("Збір + найшвидша стратегія: %.3f ms%n", collectTime + Math.min(wtTotal, wdTotal)));
+
+        sb.append("============================\n");
+        sb.append("         SizeIndex\n");
+        sb.append("============================\n");
+        sb.append(String.format("Побудова (сортування): %.3f ms%n", siBuild));
+        sb.append(String.format("Запит (двійковий пошук): %.3f ms%n", siQuery));
+
+        sb.append("\nНайбільші файли:\n");
+        for (FileRecord r : sizeIndex.top(TOP_K)) {
+            sb.append(humanSize(r.size)).append("  |  ").append(r.path).append("\n");
+        }
+
+        sb.append("\nРозподіл за розміром:\n");
+        long[] hist = sizeIndex.log2Histogram();
+        for (int b = 0; b < hist.length; b++) {
+            if (hist[b] == 0) continue;
+            String range = b == 0 ? "0 Б" : "[" + humanSize(1L << (b - 1)) + ", " + (b == 64 ? "..." : humanSize(1L << b)) + ")";
+            sb.append(String.format("%-22s %d%n", range, hist[b]));
+        }
+
+        sb.append("\nДиректорії з найбільшим сумарним розміром:\n");
+        List<Map.Entry<Path, long[]>> dirTotals = new ArrayList<>(sizeIndex.directoryTotals(root).entrySet());
+        dirTotals.sort((x, y) -> Long.compare(y.getValue()[1], x.getValue()[1]));
+        for (Map.Entry<Path, long[]> e : dirTotals.subList(0, Math.min(TOP_K, dirTotals.size()))) {
+            sb.append(humanSize(e.getValue()[1])).append("  |  ").append(e.getValue()[0]).append(" файлів  |  ")
+                    .append(e.getKey()).append("\n");
+        }
+
         sb.append("============================\n");
         if (wtTotal < wdTotal) {
             sb.append(String.format("Work stealing - %.3f ms <- швидше%n", wtTotal));
@@ -185,29 +1254,111 @@ public class FileFinder_Zavd2 {
         }
         sb.append("============================\n");
 
-        sb.append("Знайдені файли > ").append(minKB).append(" КБ:\n\n");
+        report.write(sb);
+    }
+
+    // -------------------- Пакетний режим --------------------
 
-        for (Path p : matched) {
-            try {
-                long bytes = Files.size(p);
-                long kbsz = (bytes + 1023) / 1024;
-                sb.append(p.getFileName().toString()).append("  |  ").append(kbsz).append(" КБ\n");
-            } catch (IOException ignored) {
+    // java FileFinder_Zavd2 --dir /data [--recursive true] [--min-kb 100]
+    //                       [--strategy all | collect,ws,wd,fused,index] [--threads 1,8] [--threshold 100]
+    //                       [--warmup 3] [--iterations 10] [--format json|csv] [--out FinderBatch.json]
+    // Без запитань у консолі: кожна стратегія - warm-up + виміряні ітерації, підсумок з перцентилями у файл.
+    // ws/wd/index працюють з уже зібраним списком (як у інтерактивному режимі), collect і fused - з обходом.
+    static final Set<String> BATCH_STRATEGIES = Set.of("all", "collect", "ws", "wd", "fused", "index");
+
+    private static void runBatch(String[] args) throws Exception {
+        Map<String, String> opts = BatchSupport.parseOptions(args);
+        if (!opts.containsKey("dir")) throw new IllegalArgumentException("Потрібен параметр --dir <шлях>");
+        Path start = Paths.get(opts.get("dir"));
+        if (!Files.isDirectory(start)) throw new IllegalArgumentException("Вказано невірну директорію: " + start);
+
+        boolean recursive = Boolean.parseBoolean(opts.getOrDefault("recursive", "true"));
+        long minKB = Long.parseLong(opts.getOrDefault("min-kb", "100"));
+        long minBytes = minKB * 1024;
+        Set<String> strategies = new HashSet<>(Arrays.asList(opts.getOrDefault("strategy", "all").toLowerCase().split(",")));
+        for (String st : strategies) {
+            if (!BATCH_STRATEGIES.contains(st)) throw new IllegalArgumentException("Невідома стратегія: " + st + ", можливі: " + BATCH_STRATEGIES);
+        }
+        boolean all = strategies.contains("all");
+        List<Integer> threadCounts = BatchSupport.ints(opts.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int threshold = Integer.parseInt(opts.getOrDefault("threshold", String.valueOf(FileCountTask.THRESHOLD)));
+        int warmup = BatchSupport.warmup(opts, 3);
+        int iterations = BatchSupport.iterations(opts, 10);
+        String format = opts.getOrDefault("format", "json");
+        Path out = Paths.get(opts.getOrDefault("out", "FinderBatch." + format));
+
+        String dirName = start.toString();
+        List<BatchSupport.Result> results = new ArrayList<>();
+
+        if (all || strategies.contains("collect")) {
+            double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                BatchSupport.consume(collectFiles(start, recursive));
+                return null;
+            });
+            results.add(BatchSupport.report("FileFinder.collect", BatchSupport.params("dir", dirName, "recursive", recursive), s));
+        }
+
+        List<FileRecord> files = collectFiles(start, recursive);
+        for (int threads : threadCounts) {
+            if (all || strategies.contains("ws")) {
+                ForkJoinPool fj = new ForkJoinPool(threads);
+                try {
+                    double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                        BatchSupport.consume(fj.invoke(new FileCountTask(files, 0, files.size(), minBytes, threshold)));
+                        return null;
+                    });
+                    results.add(BatchSupport.report("FileFinder.workStealing", BatchSupport.params("dir", dirName,
+                            "files", files.size(), "minKB", minKB, "threads", threads, "threshold", threshold), s));
+                } finally {
+                    fj.shutdown();
+                }
+            }
+            if (all || strategies.contains("wd")) {
+                double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                    BatchSupport.consume(countWithFixedPool(files, threads, minBytes));
+                    return null;
+                });
+                results.add(BatchSupport.report("FileFinder.workDealing", BatchSupport.params("dir", dirName,
+                        "files", files.size(), "minKB", minKB, "threads", threads), s));
             }
         }
 
-        sb.append("============================\n");
+        if (all || strategies.contains("fused")) {
+            double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                AtomicLong found = new AtomicLong();
+                findLargeFiles(start, recursive, minBytes, r -> found.incrementAndGet());
+                BatchSupport.consume(found.get());
+                return null;
+            });
+            results.add(BatchSupport.report("FileFinder.fused", BatchSupport.params("dir", dirName, "recursive", recursive, "minKB", minKB), s));
+        }
 
-        try {
-            Files.writeString(Paths.get("FinderResult.txt"), sb.toString());
-        } catch (IOException e) {
-            System.out.println("Помилка запису у файл FinderResult.txt");
+        if (all || strategies.contains("index")) {
+            double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                BatchSupport.consume(SizeIndex.of(files).size());
+                return null;
+            });
+            results.add(BatchSupport.report("FileFinder.sizeIndex.build", BatchSupport.params("dir", dirName, "files", files.size()), s));
+
+            SizeIndex sizeIndex = SizeIndex.of(files);
+            s = BatchSupport.measure(warmup, iterations, () -> {
+                BatchSupport.consume(sizeIndex.atLeast(minBytes));
+                return null;
+            });
+            results.add(BatchSupport.report("FileFinder.sizeIndex.query", BatchSupport.params("dir", dirName,
+                    "files", files.size(), "minKB", minKB), s));
         }
+
+        BatchSupport.write(out, format, results, warmup, iterations);
     }
 
     // -------------------- MAIN --------------------
 
     public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            runBatch(args);
+            return;
+        }
 
         System.out.println("=== File Finder (Варіант №4) ===");
 
@@ -221,15 +1372,40 @@ public class FileFinder_Zavd2 {
         String rec = readLine("Переглядати підпапки? Y/N: ");
         boolean recursive = rec.equalsIgnoreCase("Y");
 
+        String mode = readLine("Режим: 1 - файли, більші за N КБ, 2 - пошук дублікатів, 3 - пошук за вмістом: ");
+        if (mode.equals("2")) {
+            runDuplicateMode(start, recursive);
+            return;
+        }
+        if (mode.equals("3")) {
+            runGrepMode(start, recursive);
+            return;
+        }
+
         long kb = readLong("Введіть мінімальний розмір файлу у КБ: ");
         if (kb < 0) kb = 0;
         long minBytes = kb * 1024;
 
+        String idx = readLine("Індекс " + INDEX_FILE + ": N - без індексу, U - оновити і використати, R - лише прочитати: ");
+
         readLine("\nГотові? Натисніть Enter...");
 
         // ==================== Збір файлів ====================
         long collectStart = System.nanoTime();
-        List<Path> allFiles = collectFiles(start, recursive);
+        List<FileRecord> allFiles;
+        Path baseDir = start; // шляхи у записах починаються з baseDir
+        if (idx.equalsIgnoreCase("U") || idx.equalsIgnoreCase("R")) {
+            FinderIndex index = FinderIndex.load(INDEX_FILE);
+            if (index == null || !index.covers(start) || idx.equalsIgnoreCase("U")) {
+                index = FinderIndex.build(start, index);
+                index.save(INDEX_FILE);
+                System.out.printf("Індекс оновлено: перечитано директорій - %d, без змін - %d.%n", index.listedDirs, index.reusedDirs);
+            }
+            allFiles = index.files(recursive);
+            baseDir = index.root;
+        } else {
+            allFiles = collectFiles(start, recursive);
+        }
         long collectEnd = System.nanoTime();
         double collectTime = (collectEnd - collectStart) / 1_000_000.0;
         System.out.printf("Збір файлів завершено. Знайдено всього %d файлів. Час: %.3f ms%n", allFiles.size(), collectTime);
@@ -238,53 +1414,79 @@ public class FileFinder_Zavd2 {
         long wtProcessStart = System.nanoTime();
         ForkJoinPool fj = new ForkJoinPool();
         FileCountTask root = new FileCountTask(allFiles, 0, allFiles.size(), minBytes);
-        List<Path> matchedSteal = fj.invoke(root);
+        List<FileRecord> matchedSteal = fj.invoke(root);
         long wtProcessEnd = System.nanoTime();
         fj.shutdown();
 
         double wtProcess = (wtProcessEnd - wtProcessStart) / 1_000_000.0;
         double wtTotal = wtProcess; // тепер total = process, бо збір файлів винесено окремо
 
-        System.out.printf("\nWork Stealing завершено. Час обробки: %.3f ms%n", wtProcess);
+        System.out.printf("\nWork Stealing завершено. Знайдено %d файлів. Час обробки: %.3f ms%n", matchedSteal.size(), wtProcess);
         readLine("Натисніть Enter для Work Dealing...");
 
         // ==================== Work Dealing ====================
-        int threads;
-        try {
-            threads = Integer.parseInt(readLine("Кількість потоків (натисніть Enter для автопідбору): "));
-            if (threads <= 0) threads = Runtime.getRuntime().availableProcessors();
-        } catch (Exception e) {
-            threads = Runtime.getRuntime().availableProcessors();
-        }
+        int threads = readThreads();
 
         long wdProcessStart = System.nanoTime();
-        List<Path> matchedDeal = countWithFixedPool(allFiles, threads, minBytes);
+        List<FileRecord> matchedDeal = countWithFixedPool(allFiles, threads, minBytes);
         long wdProcessEnd = System.nanoTime();
 
         double wdProcess = (wdProcessEnd - wdProcessStart) / 1_000_000.0;
         double wdTotal = wdProcess;
 
-        System.out.printf("\nWork Dealing завершено. Час обробки: %.3f ms%n", wdProcess);
-        readLine("Натисніть Enter для порівняння...");
+        System.out.printf("\nWork Dealing завершено. Знайдено %d файлів. Час обробки: %.3f ms%n", matchedDeal.size(), wdProcess);
+        readLine("Натисніть Enter для Fused pipeline (обхід + фільтр за один прохід)...");
+
+        // ==================== Fused pipeline ====================
+        // Повний список не будується: збіги одразу дописуються у FinderResult.txt,
+        // тож час Fused містить і запис звіту (синхронізований ReportWriter) - на відміну від WS/WD
+        try (ReportWriter report = new ReportWriter(RESULT_FILE, kb)) {
+            long fusedStart = System.nanoTime();
+            findLargeFiles(start, recursive, minBytes, report::match);
+            long fusedEnd = System.nanoTime();
+            double fusedTime = (fusedEnd - fusedStart) / 1_000_000.0;
+
+            System.out.printf("\nFused pipeline завершено. Знайдено %d файлів. Час (з записом звіту): %.3f ms%n", report.matches(), fusedTime);
+            readLine("Натисніть Enter для SizeIndex (запит по відсортованих розмірах)...");
 
-        //===================== Вивід ======================
-        String fasterSteal = wtTotal < wdTotal ? "\033[1;32mWork Stealing\033[0m" : "Work Stealing";
-        String fasterDeal = wdTotal < wtTotal ? "\033[1;32mWork Dealing\033[0m" : "Work Dealing";
+            // ==================== SizeIndex ====================
+            long siStart = System.nanoTime();
+            SizeIndex sizeIndex = SizeIndex.of(allFiles);
+            long siBuilt = System.nanoTime();
+            List<FileRecord> matchedIndex = sizeIndex.atLeast(minBytes);
+            long siEnd = System.nanoTime();
+            double siBuild = (siBuilt - siStart) / 1_000_000.0;
+            double siQuery = (siEnd - siBuilt) / 1_000_000.0;
 
-        System.out.println("\n====================");
-        System.out.println("     Порівняння");
-        System.out.println("====================");
-        System.out.printf("%s = %.3f ms%n", fasterSteal, wtTotal);
-        System.out.printf("%s = %.3f ms%n", fasterDeal, wdTotal);
+            System.out.printf("\nSizeIndex: побудова %.3f ms, запит %.3f ms. Знайдено %d файлів.%n", siBuild, siQuery, matchedIndex.size());
+            readLine("Натисніть Enter для порівняння...");
 
-        //===================== Запис у файл ======================
-        writeResultsToFile(
-                collectTime,
-                wtProcess, wtTotal,
-                wdProcess, wdTotal,
-                kb, threads,
-                wtTotal < wdTotal ? matchedSteal : matchedDeal
-        );
+            //===================== Вивід ======================
+            String fasterSteal = wtTotal < wdTotal ? "\033[1;32mWork Stealing\033[0m" : "Work Stealing";
+            String fasterDeal = wdTotal < wtTotal ? "\033[1;32mWork Dealing\033[0m" : "Work Dealing";
+
+            System.out.println("\n====================");
+            System.out.println("     Порівняння");
+            System.out.println("====================");
+            System.out.printf("%s = %.3f ms%n", fasterSteal, wtTotal);
+            System.out.printf("%s = %.3f ms%n", fasterDeal, wdTotal);
+            System.out.printf("Fused (обхід + фільтр + запис звіту) = %.3f ms (збір + найшвидша стратегія, без запису = %.3f ms)%n",
+                    fusedTime, collectTime + Math.min(wtTotal, wdTotal));
+
+            //===================== Запис у файл ======================
+            writeSummary(
+                    report,
+                    collectTime,
+                    wtProcess, wtTotal,
+                    wdProcess, wdTotal,
+                    fusedTime,
+                    sizeIndex, baseDir, siBuild, siQuery,
+                    threads
+            );
+        } catch (IOException e) {
+            System.out.println("Помилка обходу або запису у файл FinderResult.txt: " + e.getMessage());
+            return;
+        }
 
         System.out.println("\nРезультати записано у FinderResult.txt");
 
@@ -292,8 +1494,7 @@ public class FileFinder_Zavd2 {
         String show = readLine("Хочете вивести результати тут? Y/N: ");
         if (show.equalsIgnoreCase("Y")) {
             System.out.println();
-            String text = Files.readString(Paths.get("FinderResult.txt"));
-            System.out.println(text);
+            pageFile(RESULT_FILE);
         }
     }
 }
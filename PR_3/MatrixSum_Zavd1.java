@@ -1,11 +1,19 @@
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 
 public class MatrixSum_Zavd1 {
 
     private static final Scanner scanner = new Scanner(System.in);
 
+    private static final String MATRIX_BIN = "Matrix.bin";
+
     // ----------------------------- Зчитування чисел -----------------------------
     private static int readAnyInt(String prompt) {
         while (true) {
@@ -41,98 +49,422 @@ public class MatrixSum_Zavd1 {
 
     // Знаходження максимального числа символів у будь-якому елементі матриці
     // ---------------------------------------------------------------------
-        private static int getMaxNumberWidth(int[][] m) {
+        private static int getMaxNumberWidth(IntMatrix m) {
             int max = 0;
-            for (int[] row : m) {
+            int[] row = new int[m.cols()];
+            for (int r = 0; r < m.rows(); r++) {
+                m.readRow(r, row);
                 for (int value : row) {
-                    int len = String.valueOf(value).length();
+                    int len = textWidth(value);
                     if (len > max) max = len;
                 }
             }
             return max;
         }
 
+        // Кількість символів числа (як String.valueOf(value).length(), але без створення рядка)
+        private static int textWidth(int value) {
+            long v = value;
+            int len = 1;
+            if (v < 0) { len++; v = -v; }
+            while (v >= 10) { v /= 10; len++; }
+            return len;
+        }
+
         // Вивід матриці у консоль з вирівнюванням по ширині
-        private static void printMatrix(int[][] m) {
+        private static void printMatrix(IntMatrix m) {
+            try {
+                writeMatrixText(m, System.out);
+            } catch (IOException e) {
+                System.out.println("Помилка виводу матриці");
+            }
+        }
+
+        // Потоковий запис вирівняного тексту матриці (у файл чи консоль).
+        // Рядок збирається у багаторазовому byte[] буфері, тож пам'ять - O(рядок), а не O(матриця),
+        // і без String.format на кожен елемент. Формат той самий: "%{width}d" через " | ".
+        private static void writeMatrixText(IntMatrix m, OutputStream os) throws IOException {
             int width = getMaxNumberWidth(m); // максимальна кількість символів числа
+            int cols = m.cols();
+            int[] row = new int[cols];
+            byte[] line = new byte[cols * (width + 3) + 1];
+            byte[] digits = new byte[11];
 
-            for (int[] row : m) {
-                StringBuilder sb = new StringBuilder();
-                for (int j = 0; j < row.length; j++) {
+            OutputStream out = new BufferedOutputStream(os, 1 << 16);
+            for (int r = 0; r < m.rows(); r++) {
+                m.readRow(r, row);
+                int pos = 0;
+                for (int j = 0; j < cols; j++) {
+                    // цифри числа справа наліво
+                    long v = row[j];
+                    boolean negative = v < 0;
+                    if (negative) v = -v;
+                    int d = 0;
+                    do {
+                        digits[d++] = (byte) ('0' + v % 10);
+                        v /= 10;
+                    } while (v != 0);
+                    if (negative) digits[d++] = '-';
 
-                    // форматування: число вирівнюється справа, займаючи "width" символів
-                    sb.append(String.format("%" + width + "d", row[j]));
+                    // вирівнювання справа пробілами до width
+                    for (int k = d; k < width; k++) line[pos++] = ' ';
+                    while (d > 0) line[pos++] = digits[--d];
 
-                    if (j < row.length - 1) sb.append(" | ");
+                    if (j < cols - 1) {
+                        line[pos++] = ' ';
+                        line[pos++] = '|';
+                        line[pos++] = ' ';
+                    }
                 }
-                System.out.println(sb);
+                line[pos++] = '\n';
+                out.write(line, 0, pos);
+            }
+            out.flush();
+        }
+
+
+    // ----------------------------- Зберігання матриці -----------------------------
+
+    // Спільний інтерфейс для матриці у heap (int[][]) та поза heap (один суцільний off-heap сегмент).
+    // Стратегії підрахунку працюють лише через нього, тож дані ніколи не копіюються.
+    interface IntMatrix {
+        int rows();
+
+        int cols();
+
+        int get(int r, int c);
+
+        void set(int r, int c, int value);
+
+        // Сума стовпця c по всіх рядках
+        long columnSum(int c);
+
+        // Додає елементи рядка r зі стовпців [c0, c1) до acc[c0..c1)
+        void addRowTo(int r, int c0, int c1, long[] acc);
+
+        // Копіює рядок r у dst (довжиною не менше cols)
+        void readRow(int r, int[] dst);
+
+        // Записує src (перші cols елементів) у рядок r
+        void writeRow(int r, int[] src);
+    }
+
+    // Звичайна матриця int[][] (кожен рядок - окремий об'єкт у heap)
+    static final class ArrayIntMatrix implements IntMatrix {
+        final int[][] data;
+
+        ArrayIntMatrix(int rows, int cols) {
+            this.data = new int[rows][cols];
+        }
+
+        @Override public int rows() { return data.length; }
+        @Override public int cols() { return data[0].length; }
+        @Override public int get(int r, int c) { return data[r][c]; }
+        @Override public void set(int r, int c, int value) { data[r][c] = value; }
+
+        @Override
+        public long columnSum(int c) {
+            long s = 0;
+            for (int[] row : data) s += row[c];
+            return s;
+        }
+
+        @Override
+        public void addRowTo(int r, int c0, int c1, long[] acc) {
+            int[] row = data[r];
+            for (int c = c0; c < c1; c++) acc[c] += row[c];
+        }
+
+        @Override
+        public void readRow(int r, int[] dst) {
+            System.arraycopy(data[r], 0, dst, 0, data[r].length);
+        }
+
+        @Override
+        public void writeRow(int r, int[] src) {
+            System.arraycopy(src, 0, data[r], 0, data[r].length);
+        }
+    }
+
+    // Матриця в одному суцільному off-heap сегменті (row-major, int32).
+    // Сегмент - це direct buffer або memory-mapped файл. Один ByteBuffer адресує не більше 2 ГБ,
+    // тому сегмент розбито на вікна по цілій кількості рядків; адреси елементів ідуть підряд.
+    static final class OffHeapIntMatrix implements IntMatrix {
+        private static final long MAX_WINDOW_BYTES = Integer.MAX_VALUE & ~7L;
+
+        private final int rows, cols;
+        private final int rowsPerWindow;
+        private final IntBuffer[] windows;
+
+        private OffHeapIntMatrix(int rows, int cols, int rowsPerWindow, IntBuffer[] windows) {
+            this.rows = rows;
+            this.cols = cols;
+            this.rowsPerWindow = rowsPerWindow;
+            this.windows = windows;
+        }
+
+        private static int rowsPerWindow(int cols) {
+            long rowBytes = (long) cols * Integer.BYTES;
+            if (rowBytes > MAX_WINDOW_BYTES) throw new IllegalArgumentException("Рядок матриці більший за 2 ГБ: " + cols + " стовпців");
+            return (int) (MAX_WINDOW_BYTES / rowBytes);
+        }
+
+        // Direct buffer поза heap (обмежено -XX:MaxDirectMemorySize)
+        static OffHeapIntMatrix allocateDirect(int rows, int cols) {
+            int perWindow = rowsPerWindow(cols);
+            IntBuffer[] windows = new IntBuffer[(rows + perWindow - 1) / perWindow];
+            for (int w = 0; w < windows.length; w++) {
+                int n = Math.min(perWindow, rows - w * perWindow);
+                windows[w] = ByteBuffer.allocateDirect(n * cols * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
             }
+            return new OffHeapIntMatrix(rows, cols, perWindow, windows);
         }
 
+        // Memory-mapped файл (int32 little-endian): дані починаються з offset, сторінки підвантажує ОС
+        // за потреби, тож heap не залежить від розміру матриці, а відкриття миттєве
+        static OffHeapIntMatrix map(Path file, long offset, int rows, int cols, boolean writable) throws IOException {
+            int perWindow = rowsPerWindow(cols);
+            IntBuffer[] windows = new IntBuffer[(rows + perWindow - 1) / perWindow];
+            long windowBytes = (long) perWindow * cols * Integer.BYTES;
 
-        // Формування вирівняного тексту матриці (для запису у файл)
-        private static String matrixToString(int[][] m) {
-            int width = getMaxNumberWidth(m);
-            StringBuilder out = new StringBuilder();
+            OpenOption[] opts = writable
+                    ? new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                    : new OpenOption[]{StandardOpenOption.READ};
+            FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
 
-            for (int[] row : m) {
-                for (int j = 0; j < row.length; j++) {
-                    out.append(String.format("%" + width + "d", row[j]));
-                    if (j < row.length - 1) out.append(" | ");
+            // відображення лишається валідним і після закриття каналу
+            try (FileChannel ch = FileChannel.open(file, opts)) {
+                for (int w = 0; w < windows.length; w++) {
+                    int n = Math.min(perWindow, rows - w * perWindow);
+                    windows[w] = ch.map(mode, offset + w * windowBytes, (long) n * cols * Integer.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
                 }
-                out.append("\n");
             }
+            return new OffHeapIntMatrix(rows, cols, perWindow, windows);
+        }
+
+        @Override public int rows() { return rows; }
+        @Override public int cols() { return cols; }
+
+        @Override
+        public int get(int r, int c) {
+            return windows[r / rowsPerWindow].get((r % rowsPerWindow) * cols + c);
+        }
+
+        @Override
+        public void set(int r, int c, int value) {
+            windows[r / rowsPerWindow].put((r % rowsPerWindow) * cols + c, value);
+        }
+
+        @Override
+        public long columnSum(int c) {
+            long s = 0;
+            for (IntBuffer w : windows) {
+                int limit = w.limit();
+                for (int i = c; i < limit; i += cols) s += w.get(i);
+            }
+            return s;
+        }
+
+        @Override
+        public void addRowTo(int r, int c0, int c1, long[] acc) {
+            IntBuffer w = windows[r / rowsPerWindow];
+            int base = (r % rowsPerWindow) * cols;
+            for (int c = c0; c < c1; c++) acc[c] += w.get(base + c);
+        }
+
+        @Override
+        public void readRow(int r, int[] dst) {
+            windows[r / rowsPerWindow].get((r % rowsPerWindow) * cols, dst, 0, cols);
+        }
+
+        @Override
+        public void writeRow(int r, int[] src) {
+            windows[r / rowsPerWindow].put((r % rowsPerWindow) * cols, src, 0, cols);
+        }
+    }
+
+    // Бінарний формат матриці (Matrix.bin), читається і пишеться через memory-mapped I/O.
+    // Заголовок HEADER_BYTES байт (little-endian):
+    //   MAGIC "MTX1" | версія | rows | cols | тип елемента (1 = int32) | резерв
+    // далі rows*cols елементів int32 little-endian у порядку row-major.
+    static final class MatrixFile {
+        static final int MAGIC = 0x3158544D; // "MTX1" у little-endian
+        static final int VERSION = 1;
+        static final int ELEM_INT32 = 1;
+        static final int HEADER_BYTES = 32;
+
+        // Створює (перезаписує) файл потрібного розміру і повертає відображену матрицю для запису
+        static OffHeapIntMatrix create(Path file, int rows, int cols) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(ELEM_INT32);
+                header.clear();
+                while (header.hasRemaining()) ch.write(header);
+
+                // останній байт задає довжину файлу (на більшості ФС - розріджений файл)
+                long size = HEADER_BYTES + (long) rows * cols * Integer.BYTES;
+                ch.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            }
+            return OffHeapIntMatrix.map(file, HEADER_BYTES, rows, cols, true);
+        }
 
-            return out.toString();
+        // Відкриває існуючий файл лише для читання; дані не копіюються в heap
+        static OffHeapIntMatrix open(Path file) throws IOException {
+            int rows, cols;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining() && ch.read(header) >= 0) { }
+                header.flip();
+                if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+                    throw new IOException("Файл " + file + " не є матрицею MTX1");
+                int version = header.getInt();
+                if (version != VERSION) throw new IOException("Непідтримувана версія формату: " + version);
+                rows = header.getInt();
+                cols = header.getInt();
+                int elemType = header.getInt();
+                if (elemType != ELEM_INT32) throw new IOException("Непідтримуваний тип елементів: " + elemType);
+                if (rows <= 0 || cols <= 0 || ch.size() < HEADER_BYTES + (long) rows * cols * Integer.BYTES)
+                    throw new IOException("Пошкоджений файл матриці " + file);
+            }
+            return OffHeapIntMatrix.map(file, HEADER_BYTES, rows, cols, false);
         }
 
+        // Зберігає будь-яку матрицю у файл, копіюючи по рядку
+        static void save(IntMatrix m, Path file) throws IOException {
+            OffHeapIntMatrix dst = create(file, m.rows(), m.cols());
+            int[] row = new int[m.cols()];
+            for (int r = 0; r < m.rows(); r++) {
+                m.readRow(r, row);
+                dst.writeRow(r, row);
+            }
+        }
+    }
+
+
+    // ----------------------------- Генерація -----------------------------
+    // Матриця ділиться на блоки по GEN_BLOCK_ROWS рядків. Кожен блок має власний SplittableRandom,
+    // seed якого залежить лише від загального seed та номера блока, тож результат однаковий
+    // за будь-якої кількості потоків. Потоки розбирають блоки динамічно через спільний лічильник.
+    static final int GEN_BLOCK_ROWS = 64;
+
+    static void fillRandom(IntMatrix matrix, int min, int max, long seed, int threads) throws Exception {
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        int blocks = (rows + GEN_BLOCK_ROWS - 1) / GEN_BLOCK_ROWS;
+        int workers = Math.max(1, Math.min(threads, blocks));
+        long bound = (long) max + 1; // long, щоб max = Integer.MAX_VALUE не переповнював межу
+
+        AtomicInteger nextBlock = new AtomicInteger();
+        ExecutorService ex = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < workers; w++) {
+            futures.add(ex.submit(() -> {
+                int[] row = new int[cols];
+                int b;
+                while ((b = nextBlock.getAndIncrement()) < blocks) {
+                    SplittableRandom rnd = new SplittableRandom(blockSeed(seed, b));
+                    int r1 = Math.min(rows, (b + 1) * GEN_BLOCK_ROWS);
+                    for (int r = b * GEN_BLOCK_ROWS; r < r1; r++) {
+                        for (int c = 0; c < cols; c++) row[c] = (int) rnd.nextLong(min, bound);
+                        matrix.writeRow(r, row);
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> f : futures) f.get();
+        } finally {
+            ex.shutdown();
+        }
+    }
+
+    // Перемішування seed і номера блока (фіналізатор MurmurHash3), щоб сусідні блоки не корелювали
+    static long blockSeed(long seed, int block) {
+        long z = seed + (block + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
 
     // ----------------------------- Work Stealing -----------------------------
-    static class ColumnSumTask extends RecursiveTask<long[]> {
-        private static final int THRESHOLD = 4;
-        final int[][] matrix;
+    // Листки пишуть суми своїх стовпців одразу у спільний result[] (кожен - у свій діапазон),
+    // тож на з'єднаннях не створюються і не склеюються проміжні масиви.
+    // Гранулярність за замовчуванням адаптивна (ADAPTIVE):
+    // - мінімальний листок - стільки стовпців, щоб вийшло не менше MIN_LEAF_CELLS елементів
+    //   (для високих матриць це 1 стовпець, для низьких - десятки чи сотні);
+    // - поки шматок більший за cols / (parallelism * LEAVES_PER_THREAD), він ділиться завжди,
+    //   а менші діляться лише тоді, коли в черзі потоку мало задач для крадіжки
+    //   (getSurplusQueuedTaskCount() <= SURPLUS_LIMIT).
+    // Фіксований поріг (threshold > 0) лишився для порівняння у бенчмарку.
+    static class ColumnSumTask extends RecursiveAction {
+        static final int ADAPTIVE = 0;
+        private static final int MIN_LEAF_CELLS = 1 << 15;
+        private static final int LEAVES_PER_THREAD = 8;
+        private static final int SURPLUS_LIMIT = 3;
+
+        final IntMatrix matrix;
+        final long[] result;
         final int start, end;
+        final int threshold;
+        final int minLeaf, maxLeaf;
+
+        ColumnSumTask(IntMatrix matrix, long[] result, int threshold, int parallelism) {
+            this(matrix, result, 0, matrix.cols(), threshold,
+                    Math.max(1, MIN_LEAF_CELLS / matrix.rows()),
+                    Math.max(1, matrix.cols() / (parallelism * LEAVES_PER_THREAD)));
+        }
 
-        ColumnSumTask(int[][] matrix, int start, int end) {
+        private ColumnSumTask(IntMatrix matrix, long[] result, int start, int end, int threshold, int minLeaf, int maxLeaf) {
             this.matrix = matrix;
+            this.result = result;
             this.start = start;
             this.end = end;
+            this.threshold = threshold;
+            this.minLeaf = minLeaf;
+            this.maxLeaf = maxLeaf;
+        }
+
+        // Суми всіх стовпців у заданому пулі
+        static long[] columnSums(ForkJoinPool pool, IntMatrix matrix, int threshold) {
+            long[] result = new long[matrix.cols()];
+            pool.invoke(new ColumnSumTask(matrix, result, threshold, pool.getParallelism()));
+            return result;
+        }
+
+        private boolean shouldSplit(int len) {
+            if (threshold != ADAPTIVE) return len > threshold;
+            if (len < 2 * minLeaf) return false;
+            return len > maxLeaf || getSurplusQueuedTaskCount() <= SURPLUS_LIMIT;
         }
 
         @Override
-        protected long[] compute() {
+        protected void compute() {
             int len = end - start;
 
-            if (len <= THRESHOLD) {
-                long[] res = new long[len];
-                for (int i = 0; i < len; i++) {
-                    long s = 0;
-                    int col = start + i;
-                    for (int[] row : matrix) s += row[col];
-                    res[i] = s;
+            if (!shouldSplit(len)) {
+                for (int c = start; c < end; c++) {
+                    result[c] = matrix.columnSum(c);
                 }
-                return res;
+                return;
             }
 
             int mid = start + len / 2;
-            ColumnSumTask left = new ColumnSumTask(matrix, start, mid);
-            ColumnSumTask right = new ColumnSumTask(matrix, mid, end);
+            ColumnSumTask left = new ColumnSumTask(matrix, result, start, mid, threshold, minLeaf, maxLeaf);
+            ColumnSumTask right = new ColumnSumTask(matrix, result, mid, end, threshold, minLeaf, maxLeaf);
 
             left.fork();
-            long[] rightRes = right.compute();
-            long[] leftRes = left.join();
-
-            long[] finalRes = new long[leftRes.length + rightRes.length];
-            System.arraycopy(leftRes, 0, finalRes, 0, leftRes.length);
-            System.arraycopy(rightRes, 0, finalRes, leftRes.length, rightRes.length);
-
-            return finalRes;
+            right.compute();
+            left.join();
         }
     }
 
     // ----------------------------- Work Dealing -----------------------------
-    static long[] sumsWorkDealing(int[][] matrix, int workerCount) throws Exception {
-        int cols = matrix[0].length;
+    static long[] sumsWorkDealing(IntMatrix matrix, int workerCount) throws Exception {
+        int cols = matrix.cols();
         long[] result = new long[cols];
 
         List<List<Integer>> tasks = new ArrayList<>();
@@ -146,9 +478,7 @@ public class MatrixSum_Zavd1 {
         for (List<Integer> lst : tasks) {
             ex.submit(() -> {
                 for (int col : lst) {
-                    long s = 0;
-                    for (int[] row : matrix) s += row[col];
-                    result[col] = s;
+                    result[col] = matrix.columnSum(col);
                 }
                 latch.countDown();
             });
@@ -159,6 +489,301 @@ public class MatrixSum_Zavd1 {
         return result;
     }
 
+    // ----------------------------- Row Blocking -----------------------------
+    // Рядки діляться на смуги між потоками, кожен потік проходить свої рядки у row-major порядку
+    // і додає значення у власний long[]-акумулятор (без спільного запису між потоками).
+    // Стовпці обробляються блоками по ACC_BLOCK елементів (32 КБ long = L1), а рядки - плитками
+    // по ROW_TILE, тож шматок акумулятора весь час лежить у кеші, а рядок читається послідовно.
+    // Наприкінці акумулятори потоків сумуються (reduce).
+    static final int ACC_BLOCK = 4096;
+    static final int ROW_TILE = 256;
+
+    static long[] sumsRowBlocking(IntMatrix matrix, int workerCount) throws Exception {
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        int workers = Math.max(1, Math.min(workerCount, rows));
+
+        ExecutorService ex = Executors.newFixedThreadPool(workers);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        for (int w = 0; w < workers; w++) {
+            final int r0 = (int) ((long) rows * w / workers);
+            final int r1 = (int) ((long) rows * (w + 1) / workers);
+            futures.add(ex.submit(() -> {
+                long[] acc = new long[cols];
+                for (int rt = r0; rt < r1; rt += ROW_TILE) {
+                    int rtEnd = Math.min(r1, rt + ROW_TILE);
+                    for (int c0 = 0; c0 < cols; c0 += ACC_BLOCK) {
+                        int c1 = Math.min(cols, c0 + ACC_BLOCK);
+                        for (int r = rt; r < rtEnd; r++) {
+                            matrix.addRowTo(r, c0, c1, acc);
+                        }
+                    }
+                }
+                return acc;
+            }));
+        }
+
+        long[] result = new long[cols];
+        try {
+            for (Future<long[]> f : futures) {
+                long[] acc = f.get();
+                for (int c = 0; c < cols; c++) result[c] += acc[c];
+            }
+        } finally {
+            ex.shutdown();
+        }
+        return result;
+    }
+
+    // ----------------------------- Редукції (один прохід) -----------------------------
+    // Рамка для довільних редукцій над матрицею. Кожен Reducer - прототип: fresh() створює
+    // порожній частковий акумулятор того ж типу для потоку, acceptRow() обробляє один рядок
+    // (у буфері int[], без boxing), merge() зливає часткові результати потоків.
+    // reduceFused() проходить матрицю рядками ОДИН раз і подає кожен рядок усім редукціям,
+    // тож п'ять статистик коштують один скан матриці, а не п'ять.
+    abstract static class Reducer {
+        abstract Reducer fresh(int rows, int cols);
+
+        abstract void acceptRow(int r, int[] row, int cols);
+
+        // other - того ж класу, створений через fresh()
+        abstract void merge(Reducer other);
+    }
+
+    // Суми стовпців
+    static final class ColumnSums extends Reducer {
+        long[] sums;
+
+        @Override
+        ColumnSums fresh(int rows, int cols) {
+            ColumnSums p = new ColumnSums();
+            p.sums = new long[cols];
+            return p;
+        }
+
+        @Override
+        void acceptRow(int r, int[] row, int cols) {
+            for (int c = 0; c < cols; c++) sums[c] += row[c];
+        }
+
+        @Override
+        void merge(Reducer other) {
+            long[] o = ((ColumnSums) other).sums;
+            for (int c = 0; c < sums.length; c++) sums[c] += o[c];
+        }
+    }
+
+    // Суми рядків (кожен потік заповнює лише свої рядки)
+    static final class RowSums extends Reducer {
+        long[] sums;
+
+        @Override
+        RowSums fresh(int rows, int cols) {
+            RowSums p = new RowSums();
+            p.sums = new long[rows];
+            return p;
+        }
+
+        @Override
+        void acceptRow(int r, int[] row, int cols) {
+            long s = 0;
+            for (int c = 0; c < cols; c++) s += row[c];
+            sums[r] = s;
+        }
+
+        @Override
+        void merge(Reducer other) {
+            long[] o = ((RowSums) other).sums;
+            for (int r = 0; r < sums.length; r++) sums[r] += o[r];
+        }
+    }
+
+    // Мінімум і максимум
+    static final class MinMax extends Reducer {
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
+        @Override
+        MinMax fresh(int rows, int cols) {
+            return new MinMax();
+        }
+
+        @Override
+        void acceptRow(int r, int[] row, int cols) {
+            int mn = min, mx = max;
+            for (int c = 0; c < cols; c++) {
+                int v = row[c];
+                if (v < mn) mn = v;
+                if (v > mx) mx = v;
+            }
+            min = mn;
+            max = mx;
+        }
+
+        @Override
+        void merge(Reducer other) {
+            MinMax o = (MinMax) other;
+            min = Math.min(min, o.min);
+            max = Math.max(max, o.max);
+        }
+    }
+
+    // Середнє та дисперсія: кожен рядок рахується окремо (два проходи по рядку в кеші),
+    // а рядки й потоки зливаються формулою Чана, тож немає переповнення суми квадратів
+    static final class Moments extends Reducer {
+        long count;
+        double mean, m2;
+
+        @Override
+        Moments fresh(int rows, int cols) {
+            return new Moments();
+        }
+
+        @Override
+        void acceptRow(int r, int[] row, int cols) {
+            long s = 0;
+            for (int c = 0; c < cols; c++) s += row[c];
+            double rowMean = (double) s / cols;
+            double rowM2 = 0;
+            for (int c = 0; c < cols; c++) {
+                double d = row[c] - rowMean;
+                rowM2 += d * d;
+            }
+            combine(cols, rowMean, rowM2);
+        }
+
+        private void combine(long n, double otherMean, double otherM2) {
+            if (n == 0) return;
+            long total = count + n;
+            double delta = otherMean - mean;
+            mean += delta * n / total;
+            m2 += otherM2 + delta * delta * ((double) count * n / total);
+            count = total;
+        }
+
+        @Override
+        void merge(Reducer other) {
+            Moments o = (Moments) other;
+            combine(o.count, o.mean, o.m2);
+        }
+
+        double variance() {
+            return count > 0 ? m2 / count : Double.NaN;
+        }
+    }
+
+    // Гістограма значень: bins однакових кошиків на [lo, hi]
+    static final class Histogram extends Reducer {
+        final int lo, hi, bins;
+        final long[] counts;
+
+        Histogram(int lo, int hi, int bins) {
+            this.lo = lo;
+            this.hi = hi;
+            this.bins = bins;
+            this.counts = new long[bins];
+        }
+
+        @Override
+        Histogram fresh(int rows, int cols) {
+            return new Histogram(lo, hi, bins);
+        }
+
+        @Override
+        void acceptRow(int r, int[] row, int cols) {
+            long range = (long) hi - lo + 1;
+            for (int c = 0; c < cols; c++) {
+                long offset = (long) row[c] - lo;
+                if (offset < 0 || offset >= range) continue; // поза межами гістограми
+                counts[(int) (offset * bins / range)]++;
+            }
+        }
+
+        @Override
+        void merge(Reducer other) {
+            long[] o = ((Histogram) other).counts;
+            for (int b = 0; b < bins; b++) counts[b] += o[b];
+        }
+
+        // Ліва межа кошика b
+        int binStart(int b) {
+            return (int) (lo + (((long) hi - lo + 1) * b + bins - 1) / bins);
+        }
+    }
+
+    // Один паралельний прохід по смугах рядків; повертає злиті редукції у тому ж порядку
+    static Reducer[] reduceFused(IntMatrix matrix, int workerCount, Reducer... reducers) throws Exception {
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        int workers = Math.max(1, Math.min(workerCount, rows));
+
+        ExecutorService ex = Executors.newFixedThreadPool(workers);
+        List<Future<Reducer[]>> futures = new ArrayList<>();
+
+        for (int w = 0; w < workers; w++) {
+            final int r0 = (int) ((long) rows * w / workers);
+            final int r1 = (int) ((long) rows * (w + 1) / workers);
+            futures.add(ex.submit(() -> {
+                Reducer[] partials = new Reducer[reducers.length];
+                for (int i = 0; i < reducers.length; i++) partials[i] = reducers[i].fresh(rows, cols);
+
+                int[] row = new int[cols];
+                for (int r = r0; r < r1; r++) {
+                    matrix.readRow(r, row);
+                    for (Reducer p : partials) p.acceptRow(r, row, cols);
+                }
+                return partials;
+            }));
+        }
+
+        Reducer[] result = null;
+        try {
+            for (Future<Reducer[]> f : futures) {
+                Reducer[] partials = f.get();
+                if (result == null) {
+                    result = partials;
+                } else {
+                    for (int i = 0; i < result.length; i++) result[i].merge(partials[i]);
+                }
+            }
+        } finally {
+            ex.shutdown();
+        }
+        return result;
+    }
+
+    // ----------------------------- Вибір стратегії -----------------------------
+    enum Strategy {
+        WORK_STEALING("Work Stealing"),
+        WORK_DEALING("Work Dealing"),
+        ROW_BLOCKING("Row Blocking");
+
+        final String label;
+
+        Strategy(String label) {
+            this.label = label;
+        }
+    }
+
+    static long[] columnSums(Strategy strategy, IntMatrix matrix, int threads) throws Exception {
+        switch (strategy) {
+            case WORK_STEALING: {
+                ForkJoinPool fj = new ForkJoinPool(threads);
+                try {
+                    return ColumnSumTask.columnSums(fj, matrix, ColumnSumTask.ADAPTIVE);
+                } finally {
+                    fj.shutdown();
+                }
+            }
+            case WORK_DEALING:
+                return sumsWorkDealing(matrix, threads);
+            case ROW_BLOCKING:
+                return sumsRowBlocking(matrix, threads);
+            default:
+                throw new IllegalArgumentException("Невідома стратегія: " + strategy);
+        }
+    }
+
     // ----------------------------- ФАЙЛИ -----------------------------
     private static void writeToFile(String filename, String content) {
         try (PrintWriter pw = new PrintWriter(new FileWriter(filename))) {
@@ -168,11 +793,21 @@ public class MatrixSum_Zavd1 {
         }
     }
 
-    // ----------------------------- MAIN -----------------------------
-    public static void main(String[] args) throws Exception {
+    // Якщо матриця не вміщується у половину heap - розміщуємо її поза heap одразу у файлі file
+    // (null - тимчасовий файл, що видаляється при виході)
+    private static IntMatrix allocateMatrix(int rows, int cols, Path file) throws IOException {
+        long bytes = (long) rows * cols * Integer.BYTES;
+        if (bytes <= Runtime.getRuntime().maxMemory() / 2) return new ArrayIntMatrix(rows, cols);
 
-        System.out.println("=== Обчислення сум стовпців матриці (Варіант №4) ===");
+        if (file == null) {
+            file = Files.createTempFile("MatrixBatch", ".bin");
+            file.toFile().deleteOnExit();
+        }
+        System.out.printf("Матриця (%,d МБ) не вміщується в heap → зберігається поза heap у %s%n", bytes >> 20, file);
+        return MatrixFile.create(file, rows, cols);
+    }
 
+    private static IntMatrix createRandomMatrix(int[] valueRange) throws IOException {
         int[] size = readMatrixSize("~\np.s Я не став обмежувати максимальний розмір матриці,\nадже мій ноутбук здатен створити та прорахувати матрицю 20.000*20.000,\nчийсь компьютер виконає і 100.000*100.000, чийсь і більше.\nАле, звісно, обмежив мінімальний розмір.\n~\nВведіть розмір матриці (наприклад 500*1000): ");
         int rows = size[0], cols = size[1];
 
@@ -180,12 +815,178 @@ public class MatrixSum_Zavd1 {
         int max = readAnyInt("Введіть максимальне значення елементів: ");
 
         if (min > max) { int t = min; min = max; max = t; }
+        valueRange[0] = min;
+        valueRange[1] = max;
 
-        int[][] matrix = new int[rows][cols];
-        Random rnd = new Random();
-        for (int i = 0; i < rows; i++)
-            for (int j = 0; j < cols; j++)
-                matrix[i][j] = rnd.nextInt(max - min + 1) + min;
+        long seed;
+        System.out.print("Введіть seed генератора (Enter - випадковий): ");
+        String seedLine = scanner.nextLine().trim();
+        try {
+            seed = Long.parseLong(seedLine);
+        } catch (NumberFormatException e) {
+            seed = new Random().nextLong();
+        }
+
+        IntMatrix matrix = allocateMatrix(rows, cols, Paths.get(MATRIX_BIN));
+        long g0 = System.nanoTime();
+        try {
+            fillRandom(matrix, min, max, seed, Runtime.getRuntime().availableProcessors());
+        } catch (Exception e) {
+            throw new IOException("Помилка генерації матриці", e);
+        }
+        long g1 = System.nanoTime();
+        System.out.printf("Матрицю згенеровано за %.3f ms (seed = %d)%n", (g1 - g0) / 1_000_000.0, seed);
+
+        return matrix;
+    }
+
+    static final int HISTOGRAM_BINS = 10;
+
+    // Текстовий звіт статистики (для консолі та MatrixResults.txt)
+    private static String formatStats(MinMax minMax, Moments moments, Histogram h, long totalSum,
+                                      double timeMs, boolean fusedMatches) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("========== СТАТИСТИКА (один прохід) ==========\n\n");
+        sb.append(String.format("Редукції: суми стовпців, суми рядків, min/max, дисперсія, гістограма - %.3f ms%n", timeMs));
+        sb.append(String.format("Сума всіх елементів: %d%n", totalSum));
+        sb.append(String.format("Мінімум: %d | Максимум: %d%n", minMax.min, minMax.max));
+        sb.append(String.format("Середнє: %.4f | Дисперсія: %.4f | Стандартне відхилення: %.4f%n",
+                moments.mean, moments.variance(), Math.sqrt(moments.variance())));
+        sb.append(fusedMatches
+                ? "Перевірка: суми стовпців з одного проходу збігаються з Work Stealing\n"
+                : "Перевірка: суми стовпців з одного проходу НЕ збігаються з Work Stealing!\n");
+
+        sb.append("\nГістограма значень:\n");
+        long maxCount = 1;
+        for (long c : h.counts) maxCount = Math.max(maxCount, c);
+        for (int b = 0; b < h.bins; b++) {
+            int from = h.binStart(b);
+            int to = b + 1 < h.bins ? h.binStart(b + 1) - 1 : h.hi;
+            if (from > to) continue; // порожній кошик, якщо діапазон вужчий за кількість кошиків
+            int bar = (int) (h.counts[b] * 40 / maxCount);
+            sb.append(String.format("[%11d .. %11d] %12d %s%n", from, to, h.counts[b], "#".repeat(bar)));
+        }
+        sb.append("\n==============================================\n");
+        return sb.toString();
+    }
+
+    // ----------------------------- ПАКЕТНИЙ РЕЖИМ -----------------------------
+    // java MatrixSum_Zavd1 [--shape 4000x4000 [--matrix-out M.bin] | --matrix Matrix.bin] [--min -1000] [--max 1000] [--seed 42]
+    //                      [--strategy all | ws,wd,rb,fused] [--threads 1,8] [--threshold 0]
+    //                      [--warmup 3] [--iterations 10] [--format json|csv] [--out MatrixBatch.json]
+    // Без запитань у консолі: кожна стратегія - warm-up + виміряні ітерації, підсумок з перцентилями у файл.
+    // --threshold - поріг ColumnSumTask (0 - адаптивний), fused - reduceFused з усіма редукціями.
+    static final Set<String> BATCH_STRATEGIES = Set.of("all", "ws", "wd", "rb", "fused");
+
+    private static void runBatch(String[] args) throws Exception {
+        Map<String, String> opts = BatchSupport.parseOptions(args);
+        Set<String> strategies = new HashSet<>(Arrays.asList(opts.getOrDefault("strategy", "all").toLowerCase().split(",")));
+        for (String st : strategies) {
+            if (!BATCH_STRATEGIES.contains(st)) throw new IllegalArgumentException("Невідома стратегія: " + st + ", можливі: " + BATCH_STRATEGIES);
+        }
+        boolean all = strategies.contains("all");
+        int cpus = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = BatchSupport.ints(opts.getOrDefault("threads", String.valueOf(cpus)));
+        int threshold = Integer.parseInt(opts.getOrDefault("threshold", String.valueOf(ColumnSumTask.ADAPTIVE)));
+        int warmup = BatchSupport.warmup(opts, 3);
+        int iterations = BatchSupport.iterations(opts, 10);
+        String format = opts.getOrDefault("format", "json");
+        Path out = Paths.get(opts.getOrDefault("out", "MatrixBatch." + format));
+
+        IntMatrix matrix;
+        int min, max;
+        if (opts.containsKey("matrix")) {
+            matrix = MatrixFile.open(Paths.get(opts.get("matrix")));
+            MinMax mm = (MinMax) reduceFused(matrix, cpus, new MinMax())[0];
+            min = mm.min;
+            max = mm.max;
+        } else {
+            String[] rc = opts.getOrDefault("shape", "4000x4000").split("[x*]");
+            min = Integer.parseInt(opts.getOrDefault("min", "-1000"));
+            max = Integer.parseInt(opts.getOrDefault("max", "1000"));
+            if (min > max) { int t = min; min = max; max = t; }
+            // нічний прогін не має затирати збережений користувачем Matrix.bin: без --matrix-out - тимчасовий файл
+            Path matrixOut = opts.containsKey("matrix-out") ? Paths.get(opts.get("matrix-out")) : null;
+            matrix = allocateMatrix(Integer.parseInt(rc[0].trim()), Integer.parseInt(rc[1].trim()), matrixOut);
+            fillRandom(matrix, min, max, Long.parseLong(opts.getOrDefault("seed", "42")), cpus);
+        }
+        String shape = matrix.rows() + "x" + matrix.cols();
+        final IntMatrix m = matrix;
+        final int lo = min, hi = max;
+
+        List<BatchSupport.Result> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            if (all || strategies.contains("ws")) {
+                ForkJoinPool fj = new ForkJoinPool(threads);
+                try {
+                    double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                        BatchSupport.consume(ColumnSumTask.columnSums(fj, m, threshold));
+                        return null;
+                    });
+                    results.add(BatchSupport.report("MatrixSum.workStealing",
+                            BatchSupport.params("shape", shape, "threads", threads, "threshold", threshold), s));
+                } finally {
+                    fj.shutdown();
+                }
+            }
+            if (all || strategies.contains("wd")) {
+                double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                    BatchSupport.consume(sumsWorkDealing(m, threads));
+                    return null;
+                });
+                results.add(BatchSupport.report("MatrixSum.workDealing", BatchSupport.params("shape", shape, "threads", threads), s));
+            }
+            if (all || strategies.contains("rb")) {
+                double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                    BatchSupport.consume(sumsRowBlocking(m, threads));
+                    return null;
+                });
+                results.add(BatchSupport.report("MatrixSum.rowBlocking", BatchSupport.params("shape", shape, "threads", threads), s));
+            }
+            if (all || strategies.contains("fused")) {
+                double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                    Reducer[] stats = reduceFused(m, threads,
+                            new ColumnSums(), new RowSums(), new MinMax(), new Moments(),
+                            new Histogram(lo, hi, HISTOGRAM_BINS));
+                    BatchSupport.consume(((ColumnSums) stats[0]).sums);
+                    return null;
+                });
+                results.add(BatchSupport.report("MatrixSum.fused", BatchSupport.params("shape", shape, "threads", threads), s));
+            }
+        }
+
+        BatchSupport.write(out, format, results, warmup, iterations);
+    }
+
+    // ----------------------------- MAIN -----------------------------
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            runBatch(args);
+            return;
+        }
+
+        System.out.println("=== Обчислення сум стовпців матриці (Варіант №4) ===");
+
+        IntMatrix matrix = null;
+        Path bin = Paths.get(MATRIX_BIN);
+        if (Files.exists(bin)) {
+            System.out.print("Знайдено " + MATRIX_BIN + ". Використати збережену матрицю? Y / N: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("Y")) {
+                try {
+                    matrix = MatrixFile.open(bin);
+                    System.out.printf("Матрицю %d*%d відкрито з %s%n", matrix.rows(), matrix.cols(), MATRIX_BIN);
+                } catch (IOException e) {
+                    System.out.println("Не вдалося прочитати " + MATRIX_BIN + ": " + e.getMessage());
+                }
+            }
+        }
+
+        int[] valueRange = null; // межі значень, якщо матрицю щойно згенеровано
+        if (matrix == null) {
+            valueRange = new int[2];
+            matrix = createRandomMatrix(valueRange);
+        }
+        int cols = matrix.cols();
 
         System.out.println("\nМатриця створена!");
         System.out.println("Готові? Натисніть Enter...");
@@ -194,7 +995,7 @@ public class MatrixSum_Zavd1 {
         // -------------------- Work Stealing --------------------
         ForkJoinPool fj = new ForkJoinPool();
         long t0 = System.nanoTime();
-        long[] stealing = fj.invoke(new ColumnSumTask(matrix, 0, cols));
+        long[] stealing = ColumnSumTask.columnSums(fj, matrix, ColumnSumTask.ADAPTIVE);
         long t1 = System.nanoTime();
         fj.shutdown();
 
@@ -212,27 +1013,87 @@ public class MatrixSum_Zavd1 {
         double dealTime = (t3 - t2) / 1_000_000.0;
 
         System.out.printf("Work Dealing виконано за %.3f ms%n", dealTime);
+        System.out.println("Натисніть Enter для Row Blocking...");
+        scanner.nextLine();
+
+        // -------------------- Row Blocking --------------------
+        long t4 = System.nanoTime();
+        long[] blocking = sumsRowBlocking(matrix, Runtime.getRuntime().availableProcessors());
+        long t5 = System.nanoTime();
+
+        double blockTime = (t5 - t4) / 1_000_000.0;
+
+        System.out.printf("Row Blocking виконано за %.3f ms%n", blockTime);
         System.out.println("Натисніть Enter, щоб порівняти...");
         scanner.nextLine();
 
         // -------------------- Порівняння --------------------
-        boolean stealFaster = stealTime < dealTime;
+        double[] times = {stealTime, dealTime, blockTime};
+        Strategy[] strategies = Strategy.values();
+        int fastest = 0;
+        for (int i = 1; i < times.length; i++) if (times[i] < times[fastest]) fastest = i;
+
+        boolean sameResults = Arrays.equals(stealing, dealing) && Arrays.equals(stealing, blocking);
 
         String green = "\033[1;32m";
+        String red = "\033[1;31m";
         String reset = "\033[0m";
 
         System.out.println("\n========== ПОРІВНЯННЯ ==========\n");
 
-        System.out.printf("Work Stealing: %.3f ms %s%n",
-                stealTime, stealFaster ? green + "<– швидше" + reset : "");
+        for (int i = 0; i < times.length; i++) {
+            System.out.printf("%s: %.3f ms %s%n",
+                    strategies[i].label, times[i], i == fastest ? green + "<– швидше" + reset : "");
+        }
 
-        System.out.printf("Work Dealing: %.3f ms %s%n",
-                dealTime, !stealFaster ? green + "<– швидше" + reset : "");
+        System.out.println(sameResults
+                ? "\nПеревірка: суми всіх стратегій збігаються"
+                : red + "\nПеревірка: суми стратегій НЕ збігаються!" + reset);
 
         System.out.println("\n================================\n");
 
+        // -------------------- Статистика за один прохід --------------------
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (valueRange == null) {
+            // для матриці з файлу межі гістограми невідомі - потрібен окремий швидкий прохід
+            MinMax mm = (MinMax) reduceFused(matrix, threads, new MinMax())[0];
+            valueRange = new int[]{mm.min, mm.max};
+        }
+
+        long t6 = System.nanoTime();
+        Reducer[] stats = reduceFused(matrix, threads,
+                new ColumnSums(), new RowSums(), new MinMax(), new Moments(),
+                new Histogram(valueRange[0], valueRange[1], HISTOGRAM_BINS));
+        long t7 = System.nanoTime();
+
+        ColumnSums fusedCols = (ColumnSums) stats[0];
+        RowSums fusedRows = (RowSums) stats[1];
+        MinMax minMax = (MinMax) stats[2];
+        Moments moments = (Moments) stats[3];
+        Histogram histogram = (Histogram) stats[4];
+
+        long totalSum = 0;
+        for (long v : fusedRows.sums) totalSum += v;
+        boolean fusedMatches = Arrays.equals(fusedCols.sums, stealing);
+
+        String statsText = formatStats(minMax, moments, histogram, totalSum, (t7 - t6) / 1_000_000.0, fusedMatches);
+        System.out.println(statsText);
+
         // -------------------- Запис у файли --------------------
-        writeToFile("Matrix.txt", matrixToString(matrix));
+        try (OutputStream os = Files.newOutputStream(Paths.get("Matrix.txt"))) {
+            writeMatrixText(matrix, os);
+        } catch (IOException e) {
+            System.out.println("Помилка запису у файл Matrix.txt");
+        }
+
+        // матриця поза heap вже лежить у Matrix.bin
+        if (!(matrix instanceof OffHeapIntMatrix)) {
+            try {
+                MatrixFile.save(matrix, bin);
+            } catch (IOException e) {
+                System.out.println("Помилка запису у файл " + MATRIX_BIN);
+            }
+        }
 
         StringBuilder results = new StringBuilder();
 
@@ -243,19 +1104,30 @@ public class MatrixSum_Zavd1 {
         }
         results.append("\n\n");
 
+        results.append("Суми елементів усіх рядків матриці:\n");
+        for (int i = 0; i < fusedRows.sums.length; i++) {
+            results.append(fusedRows.sums[i]);
+            if (i < fusedRows.sums.length - 1) results.append(" | ");
+        }
+        results.append("\n\n");
+
         results.append("========== ПОРІВНЯННЯ ==========\n\n");
 
-        results.append(String.format("Work Stealing: %.3f ms %s%n",
-                stealTime, stealFaster ? "<– швидше" : ""));
+        for (int i = 0; i < times.length; i++) {
+            results.append(String.format("%s: %.3f ms %s%n",
+                    strategies[i].label, times[i], i == fastest ? "<– швидше" : ""));
+        }
 
-        results.append(String.format("Work Dealing: %.3f ms %s%n",
-                dealTime, !stealFaster ? "<– швидше" : ""));
+        results.append(sameResults
+                ? "\nПеревірка: суми всіх стратегій збігаються\n"
+                : "\nПеревірка: суми стратегій НЕ збігаються!\n");
 
-        results.append("\n================================\n");
+        results.append("\n================================\n\n");
+        results.append(statsText);
 
         writeToFile("MatrixResults.txt", results.toString());
 
-        System.out.println("Результати записано у файли Matrix.txt та MatrixResults.txt.");
+        System.out.println("Результати записано у файли Matrix.txt, Matrix.bin та MatrixResults.txt.");
 
         // -------------------- Додатковий вивід --------------------
         System.out.print("\nХочете вивести матрицю? Y / N: ");
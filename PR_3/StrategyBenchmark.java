@@ -0,0 +1,151 @@
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Бенчмарк стратегій Work Stealing / Work Dealing з Практичної №3 (у стилі JMH).
+ *
+ * На відміну від одиночного System.nanoTime() у main, тут:
+ * - пули та дані готуються до вимірювань (setup не потрапляє у час);
+ * - спочатку йдуть warm-up ітерації (JIT), потім виміряні;
+ * - перед кожною ітерацією викликається System.gc(), щоб прибирання з попередньої не потрапило у вимір;
+ * - результат кожного виклику йде у "blackhole", щоб JIT не викинув обчислення;
+ * - підсумок (середнє, похибка, перцентилі, сирі дані) пишеться у JSON у форматі JMH
+ *   (або у CSV з --format csv), тож результати різних збірок можна порівнювати тими ж інструментами.
+ * Вимірювання і звіт - спільні з пакетним режимом обох завдань (див. BatchSupport).
+ *
+ * Запуск (з теки з класами обох завдань):
+ *   java StrategyBenchmark --shapes 1000x1000,4000x4000 --threads 1,8 --thresholds 0,4,64
+ *                          --dir /some/path --min-kb 100 --file-thresholds 100,1000
+ *                          --warmup 5 --iterations 10 --format json --out StrategyBenchmark.json
+ * (--thresholds 0 - адаптивна гранулярність ColumnSumTask)
+ */
+public class StrategyBenchmark {
+
+    // ----------------------------- MatrixSum_Zavd1 -----------------------------
+    static void benchMatrix(List<int[]> shapes, List<Integer> threadCounts, List<Integer> thresholds,
+                            int warmup, int iterations, List<BatchSupport.Result> out) throws Exception {
+        for (int[] shape : shapes) {
+            MatrixSum_Zavd1.IntMatrix matrix = new MatrixSum_Zavd1.ArrayIntMatrix(shape[0], shape[1]);
+            MatrixSum_Zavd1.fillRandom(matrix, -1000, 1000, 42, Runtime.getRuntime().availableProcessors());
+            String shapeName = shape[0] + "x" + shape[1];
+
+            for (int threads : threadCounts) {
+                for (int threshold : thresholds) {
+                    ForkJoinPool fj = new ForkJoinPool(threads);
+                    try {
+                        double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                            BatchSupport.consume(MatrixSum_Zavd1.ColumnSumTask.columnSums(fj, matrix, threshold));
+                            return null;
+                        });
+                        out.add(BatchSupport.report("MatrixSum.ColumnSumTask", BatchSupport.params("shape", shapeName, "threads", threads, "threshold", threshold), s));
+                    } finally {
+                        fj.shutdown();
+                    }
+                }
+
+                double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                    BatchSupport.consume(MatrixSum_Zavd1.sumsWorkDealing(matrix, threads));
+                    return null;
+                });
+                out.add(BatchSupport.report("MatrixSum.sumsWorkDealing", BatchSupport.params("shape", shapeName, "threads", threads), s));
+
+                s = BatchSupport.measure(warmup, iterations, () -> {
+                    BatchSupport.consume(MatrixSum_Zavd1.sumsRowBlocking(matrix, threads));
+                    return null;
+                });
+                out.add(BatchSupport.report("MatrixSum.sumsRowBlocking", BatchSupport.params("shape", shapeName, "threads", threads), s));
+            }
+        }
+    }
+
+    // ----------------------------- FileFinder_Zavd2 -----------------------------
+    static void benchFiles(Path dir, long minKB, List<Integer> threadCounts, List<Integer> thresholds,
+                           int warmup, int iterations, List<BatchSupport.Result> out) throws Exception {
+        List<FileFinder_Zavd2.FileRecord> files = FileFinder_Zavd2.collectFiles(dir, true);
+        long minBytes = minKB * 1024;
+        String dirName = dir.toString();
+        System.out.printf("Файлів у %s: %d%n", dir, files.size());
+
+        for (int threads : threadCounts) {
+            for (int threshold : thresholds) {
+                ForkJoinPool fj = new ForkJoinPool(threads);
+                try {
+                    double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                        BatchSupport.consume(fj.invoke(new FileFinder_Zavd2.FileCountTask(files, 0, files.size(), minBytes, threshold)));
+                        return null;
+                    });
+                    out.add(BatchSupport.report("FileFinder.FileCountTask",
+                            BatchSupport.params("dir", dirName, "files", files.size(), "threads", threads, "threshold", threshold), s));
+                } finally {
+                    fj.shutdown();
+                }
+            }
+
+            double[] s = BatchSupport.measure(warmup, iterations, () -> {
+                BatchSupport.consume(FileFinder_Zavd2.countWithFixedPool(files, threads, minBytes));
+                return null;
+            });
+            out.add(BatchSupport.report("FileFinder.countWithFixedPool", BatchSupport.params("dir", dirName, "files", files.size(), "threads", threads), s));
+        }
+
+        double[] s = BatchSupport.measure(warmup, iterations, () -> {
+            BatchSupport.consume(FileFinder_Zavd2.collectFiles(dir, true).size());
+            return null;
+        });
+        out.add(BatchSupport.report("FileFinder.collectFiles", BatchSupport.params("dir", dirName), s));
+
+        s = BatchSupport.measure(warmup, iterations, () -> {
+            Queue<FileFinder_Zavd2.FileRecord> matches = new ConcurrentLinkedQueue<>();
+            FileFinder_Zavd2.findLargeFiles(dir, true, minBytes, matches::add);
+            BatchSupport.consume(matches.size());
+            return null;
+        });
+        out.add(BatchSupport.report("FileFinder.findLargeFiles", BatchSupport.params("dir", dirName, "minKB", minKB), s));
+
+        s = BatchSupport.measure(warmup, iterations, () -> {
+            BatchSupport.consume(FileFinder_Zavd2.SizeIndex.of(files).size());
+            return null;
+        });
+        out.add(BatchSupport.report("FileFinder.SizeIndex.of", BatchSupport.params("dir", dirName, "files", files.size()), s));
+
+        FileFinder_Zavd2.SizeIndex sizeIndex = FileFinder_Zavd2.SizeIndex.of(files);
+        s = BatchSupport.measure(warmup, iterations, () -> {
+            BatchSupport.consume(sizeIndex.atLeast(minBytes));
+            return null;
+        });
+        out.add(BatchSupport.report("FileFinder.SizeIndex.atLeast", BatchSupport.params("dir", dirName, "files", files.size(), "minKB", minKB), s));
+    }
+
+    // ----------------------------- MAIN -----------------------------
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = BatchSupport.parseOptions(args);
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        List<int[]> shapes = new ArrayList<>();
+        for (String sh : opts.getOrDefault("shapes", "1000x1000,4000x4000,200x20000").split(",")) {
+            String[] rc = sh.trim().split("[x*]");
+            shapes.add(new int[]{Integer.parseInt(rc[0]), Integer.parseInt(rc[1])});
+        }
+        List<Integer> threads = BatchSupport.ints(opts.getOrDefault("threads", cpus == 1 ? "1" : "1," + cpus));
+        List<Integer> thresholds = BatchSupport.ints(opts.getOrDefault("thresholds", MatrixSum_Zavd1.ColumnSumTask.ADAPTIVE + ",4"));
+        List<Integer> fileThresholds = BatchSupport.ints(opts.getOrDefault("file-thresholds", String.valueOf(FileFinder_Zavd2.FileCountTask.THRESHOLD)));
+        int warmup = BatchSupport.warmup(opts, 5);
+        int iterations = BatchSupport.iterations(opts, 10);
+        String format = opts.getOrDefault("format", "json");
+        Path out = Paths.get(opts.getOrDefault("out", "StrategyBenchmark." + format));
+
+        List<BatchSupport.Result> results = new ArrayList<>();
+        benchMatrix(shapes, threads, thresholds, warmup, iterations, results);
+
+        if (opts.containsKey("dir")) {
+            Path dir = Paths.get(opts.get("dir"));
+            long minKB = Long.parseLong(opts.getOrDefault("min-kb", "100"));
+            benchFiles(dir, minKB, threads, fileThresholds, warmup, iterations, results);
+        } else {
+            System.out.println("FileFinder пропущено: вкажіть --dir <шлях>");
+        }
+
+        BatchSupport.write(out, format, results, warmup, iterations);
+    }
+}
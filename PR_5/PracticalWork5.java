@@ -1,17 +1,44 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 public class PracticalWork5 {
 
     // Діапазон для пошуку простих чисел (Завдання 1)
-    private static final int RANGE_START = 1;
-    private static final int RANGE_END = 10_000_000;
+    private static final long RANGE_START = 1;
+    private static final long RANGE_END = 10_000_000L;
 
     public static void main(String[] args) throws ExecutionException, InterruptedException {
         System.out.println("Кількість ядер CPU: " + Runtime.getRuntime().availableProcessors());
@@ -24,6 +51,22 @@ public class PracticalWork5 {
 
         Thread.sleep(1500); // Пауза для розділення виводу
 
+        // =================================================================================
+        // ЗАВДАННЯ №1б: Той самий підрахунок на всіх ядрах (ForkJoin + адаптивне розбиття)
+        // =================================================================================
+        System.out.println("\n--- Завдання 1б: ForkJoin (work stealing) по всіх ядрах ---");
+        performParallelPrimeCountingWithStats();
+
+        Thread.sleep(1500);
+
+        // =================================================================================
+        // ЗАВДАННЯ №1в: Потокова видача простих чисел (Spliterator) та запис у Primes.bin
+        // =================================================================================
+        System.out.println("\n--- Завдання 1в: потокова видача простих чисел (Spliterator + Primes.bin) ---");
+        performPrimeStreamingTask();
+
+        Thread.sleep(1500);
+
         // =================================================================================
         // ЗАВДАННЯ №2: Аналіз та вибір ПЗ (allOf)
         // =================================================================================
@@ -39,7 +82,7 @@ public class PracticalWork5 {
      * 3. Використовує thenCombine для об'єднання результатів та підсумку часу.
      */
     private static void performPrimeCountingTaskWithStats() throws ExecutionException, InterruptedException {
-        int splitPoint = RANGE_END / 2;
+        long splitPoint = RANGE_END / 2;
         long startTimeGlobal = System.nanoTime(); // Для заміру загального "стінного" часу
 
         // --- Підзавдання 1 ---
@@ -88,6 +131,80 @@ public class PracticalWork5 {
         System.out.println("------------------------------------------------");
     }
 
+    /**
+     * ЗАВДАННЯ 1б:
+     * 1. Ділить діапазон не навпіл, а за оціненою вартістю (PrimeRangeTask.estimateCost).
+     * 2. ForkJoinPool на всі ядра сам перерозподіляє чанки між потоками (work stealing).
+     * 3. Кожен чанк дає свій TaskResult, а вузли дерева об'єднують результати дітей
+     *    так само, як thenCombine у Завданні 1.
+     */
+    private static void performParallelPrimeCountingWithStats() throws ExecutionException, InterruptedException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        SegmentedSieve sieve = new SegmentedSieve(RANGE_END);
+        Queue<ChunkResult> chunks = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        long startTimeGlobal = System.nanoTime();
+        CompletableFuture<TaskResult> total = CompletableFuture.supplyAsync(() -> pool.invoke(
+                PrimeRangeTask.root(sieve, RANGE_START, RANGE_END, parallelism, chunks)), pool);
+        TaskResult summary = total.get();
+        long endTimeGlobal = System.nanoTime();
+        pool.shutdown();
+
+        List<ChunkResult> sorted = new ArrayList<>(chunks);
+        sorted.sort(Comparator.comparingLong(c -> c.start));
+
+        System.out.println("\n>>> Деталі виконання (" + sorted.size() + " чанків, " + parallelism + " потоків):");
+        if (sorted.size() <= 16) {
+            for (ChunkResult c : sorted) System.out.println(c);
+        } else {
+            LongSummaryStatistics st = sorted.stream().mapToLong(c -> c.durationNs).summaryStatistics();
+            System.out.printf("   Час чанку: мін %.2f мс | сер %.2f мс | макс %.2f мс%n",
+                    st.getMin() / 1_000_000.0, st.getAverage() / 1_000_000.0, st.getMax() / 1_000_000.0);
+        }
+
+        System.out.println("------------------------------------------------");
+        System.out.printf("ВСЬОГО знайдено: %d простих чисел.%n   Сумарний час роботи потоків (CPU time): %.2f мс%n",
+                summary.count, summary.durationNs / 1_000_000.0);
+        System.out.printf("   Реальний час очікування (Wall-clock):  %.2f мс%n", (endTimeGlobal - startTimeGlobal) / 1_000_000.0);
+        System.out.println("------------------------------------------------");
+    }
+
+    /**
+     * ЗАВДАННЯ 1в:
+     * 1. Паралельно споживає потік простих (sum) без збереження їх у пам'яті.
+     * 2. Записує всі прості діапазону у компактний файл Primes.bin та читає його назад для перевірки.
+     */
+    private static void performPrimeStreamingTask() {
+        SegmentedSieve sieve = new SegmentedSieve(RANGE_END);
+
+        long t0 = System.nanoTime();
+        long sum = sieve.primes(RANGE_START, RANGE_END, true).sum();
+        long t1 = System.nanoTime();
+        System.out.printf("   Сума всіх простих (parallel LongStream): %d | Час: %.2f мс%n", sum, (t1 - t0) / 1_000_000.0);
+
+        Path file = Paths.get("Primes.bin");
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            long t2 = System.nanoTime();
+            long written = PrimeFile.write(file, sieve, RANGE_START, RANGE_END, pool);
+            long t3 = System.nanoTime();
+            long bytes = Files.size(file);
+            System.out.printf("   Записано у Primes.bin: %d простих, %,d байт (%.2f байт/число) | Час: %.2f мс%n",
+                    written, bytes, written == 0 ? 0.0 : (double) bytes / written, (t3 - t2) / 1_000_000.0);
+
+            try (LongStream stored = PrimeFile.read(file)) {
+                LongSummaryStatistics st = stored.summaryStatistics();
+                System.out.printf("   Перевірка читанням: %d простих, останнє %d, сума %s%n",
+                        st.getCount(), st.getMax(), st.getSum() == sum ? "збігається" : "НЕ збігається");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Помилка запису у файл Primes.bin");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     // Завдання №2
     private static void chooseBestSoftwareFromFive() {
         List<String> softwareNames = List.of(
@@ -149,22 +266,505 @@ public class PracticalWork5 {
         }
     }
 
-    // Математика для пошуку і підрахування простих чисел
-    private static long countPrimes(int start, int end) {
-        return IntStream.rangeClosed(start, end)
-                .filter(PracticalWork5::isPrime)
-                .count();
+    // Результат одного чанку для Завдання 1б (з межами діапазону для сортування)
+    static class ChunkResult extends TaskResult {
+        final long start;
+        final long end;
+
+        ChunkResult(long start, long end, long count, long durationNs) {
+            super("Чанк " + start + ".." + end, count, durationNs);
+            this.start = start;
+            this.end = end;
+        }
     }
 
-    private static boolean isPrime(int number) {
-        if (number <= 1) return false;
-        if (number == 2 || number == 3) return true;
-        if (number % 2 == 0) return false;
-        // Оптимізована перевірка
-        for (int i = 3; i * i <= number; i += 2) {
-            if (number % i == 0) return false;
+    /**
+     * ForkJoin-задача для підрахунку простих у [start, end].
+     * Діапазон ділиться в точці, де оцінена вартість лівої та правої частин однакова,
+     * а межі вирівнюються по сегментах решета. Листок - коли вартість не перевищує
+     * leafCost (≈ загальна вартість / (parallelism * 8)), тож чанків вистачає всім ядрам.
+     */
+    static class PrimeRangeTask extends RecursiveTask<TaskResult> {
+        private static final int CHUNKS_PER_THREAD = 8;
+
+        final SegmentedSieve sieve;
+        final long start, end;
+        final double leafCost;
+        final Queue<ChunkResult> chunks;
+
+        PrimeRangeTask(SegmentedSieve sieve, long start, long end, double leafCost, Queue<ChunkResult> chunks) {
+            this.sieve = sieve;
+            this.start = start;
+            this.end = end;
+            this.leafCost = leafCost;
+            this.chunks = chunks;
+        }
+
+        static PrimeRangeTask root(SegmentedSieve sieve, long start, long end, int parallelism, Queue<ChunkResult> chunks) {
+            double leafCost = estimateCost(start, end) / ((double) parallelism * CHUNKS_PER_THREAD);
+            return new PrimeRangeTask(sieve, start, end, leafCost, chunks);
+        }
+
+        /**
+         * Оцінка вартості просіювання [lo, hi]:
+         * викреслювання (~ n/2 * ln ln sqrt(hi)) + прохід по базових простих у кожному сегменті
+         * (~ pi(sqrt(hi))) + підрахунок бітів.
+         */
+        static double estimateCost(long lo, long hi) {
+            if (hi < lo) return 0;
+            double len = hi - lo + 1;
+            double root = Math.max(Math.sqrt((double) hi), 3.0);
+            double lnRoot = Math.log(root);
+            double marking = len / 2 * Math.max(Math.log(lnRoot), 0.1);
+            double segments = Math.ceil(len / SegmentedSieve.SEGMENT_SPAN);
+            double perSegment = root / lnRoot + SegmentedSieve.SEGMENT_BITS / 64.0;
+            return marking + segments * perSegment;
+        }
+
+        // Точка розбиття з рівною вартістю половин, вирівняна по сегментах від start
+        private long costMidpoint() {
+            double half = estimateCost(start, end) / 2;
+            long lo = start, hi = end;
+            while (hi - lo > SegmentedSieve.SEGMENT_SPAN) {
+                long mid = lo + (hi - lo) / 2;
+                if (estimateCost(start, mid) < half) lo = mid;
+                else hi = mid;
+            }
+            long aligned = start + ((lo - start) / SegmentedSieve.SEGMENT_SPAN) * SegmentedSieve.SEGMENT_SPAN - 1;
+            return aligned < start ? start + SegmentedSieve.SEGMENT_SPAN - 1 : aligned;
+        }
+
+        @Override
+        protected TaskResult compute() {
+            if (end - start < 2 * SegmentedSieve.SEGMENT_SPAN || estimateCost(start, end) <= leafCost) {
+                long t0 = System.nanoTime();
+                long count = sieve.count(start, end);
+                ChunkResult res = new ChunkResult(start, end, count, System.nanoTime() - t0);
+                chunks.add(res);
+                return res;
+            }
+
+            long mid = costMidpoint();
+            PrimeRangeTask left = new PrimeRangeTask(sieve, start, mid, leafCost, chunks);
+            PrimeRangeTask right = new PrimeRangeTask(sieve, mid + 1, end, leafCost, chunks);
+
+            left.fork();
+            TaskResult rightRes = right.compute();
+            TaskResult leftRes = left.join();
+
+            // Об'єднання як у thenCombine: сума кількостей і сумарний CPU time
+            return new TaskResult("Діапазон " + start + ".." + end,
+                    leftRes.count + rightRes.count, leftRes.durationNs + rightRes.durationNs);
+        }
+    }
+
+    // Математика для пошуку і підрахування простих чисел (сегментне решето замість перебору дільників)
+    static long countPrimes(long start, long end) {
+        return new SegmentedSieve(end).count(start, end);
+    }
+
+    /**
+     * Сегментне решето Ератосфена.
+     * - зберігаються лише непарні числа: 1 біт = 1 непарне число (у long[] бітсеті);
+     * - діапазон проходиться сегментами розміром під кеш L1/L2, тож пам'ять обмежена
+     *   розміром сегмента незалежно від верхньої межі (можна рахувати і до 10^10);
+     * - базові прості до sqrt(limit) обчислюються один раз і лише читаються,
+     *   тому один екземпляр можна безпечно використовувати з кількох потоків.
+     */
+    static class SegmentedSieve {
+        // 32 КБ бітсету на сегмент = 262 144 непарних числа (діапазон ~524 288)
+        static final int SEGMENT_BYTES = 32 * 1024;
+        static final int SEGMENT_BITS = SEGMENT_BYTES * 8;
+        static final long SEGMENT_SPAN = 2L * SEGMENT_BITS;
+
+        final long limit;
+        final int[] basePrimes; // непарні прості <= sqrt(limit)
+
+        SegmentedSieve(long limit) {
+            this.limit = limit;
+            this.basePrimes = oddPrimesUpTo((int) Math.sqrt((double) limit) + 1);
+        }
+
+        // Просте решето для базових простих (без 2)
+        private static int[] oddPrimesUpTo(int n) {
+            boolean[] composite = new boolean[n + 1];
+            int[] tmp = new int[Math.max(16, n / 2)];
+            int cnt = 0;
+            for (int i = 3; i <= n; i += 2) {
+                if (composite[i]) continue;
+                tmp[cnt++] = i;
+                for (long j = (long) i * i; j <= n; j += 2L * i) composite[(int) j] = true;
+            }
+            return Arrays.copyOf(tmp, cnt);
+        }
+
+        /** Кількість простих у [start, end] (обидві межі включно). */
+        long count(long start, long end) {
+            if (end > limit) throw new IllegalArgumentException("end > limit: " + end + " > " + limit);
+            if (start < 2) start = 2;
+            if (start > end) return 0;
+
+            long total = (start <= 2 && end >= 2) ? 1 : 0;
+
+            long lo = (start % 2 == 0) ? start + 1 : start; // перше непарне >= start
+            if (lo == 1) lo = 3;
+            if (lo > end) return total;
+
+            long[] bits = new long[SEGMENT_BITS / 64];
+            for (long segLow = lo; segLow <= end; segLow += SEGMENT_SPAN) {
+                long segHigh = Math.min(end, segLow + SEGMENT_SPAN - 1);
+                int n = (int) ((segHigh - segLow) / 2) + 1; // кількість непарних у сегменті
+                total += sieveSegment(bits, segLow, segHigh, n);
+            }
+            return total;
+        }
+
+        /**
+         * Просіює один сегмент непарних чисел [segLow, segHigh] (segLow непарне)
+         * та повертає кількість простих у ньому. Біт i відповідає числу segLow + 2*i.
+         */
+        long sieveSegment(long[] bits, long segLow, long segHigh, int n) {
+            int words = markSegment(bits, segLow, segHigh, n);
+
+            // рахуємо нулі (непозначені = прості)
+            long cnt = 0;
+            for (int w = 0; w < words; w++) {
+                cnt += Long.bitCount(primeBits(bits, w, words, n));
+            }
+            return cnt;
+        }
+
+        /** Викреслює складені числа сегмента; повертає кількість задіяних слів бітсету. */
+        int markSegment(long[] bits, long segLow, long segHigh, int n) {
+            int words = (n + 63) >>> 6;
+            Arrays.fill(bits, 0, words, 0L);
+
+            for (int p : basePrimes) {
+                long pp = (long) p * p;
+                if (pp > segHigh) break;
+                // перше непарне кратне p, яке >= max(p*p, segLow)
+                long m = Math.max(pp, ((segLow + p - 1) / p) * p);
+                if ((m & 1) == 0) m += p;
+                for (long i = (m - segLow) >>> 1; i < n; i += p) {
+                    bits[(int) (i >>> 6)] |= 1L << i;
+                }
+            }
+            return words;
+        }
+
+        // Слово w з одиницями на місцях простих (з маскою для хвоста останнього слова)
+        static long primeBits(long[] bits, int w, int words, int n) {
+            long word = ~bits[w];
+            if (w == words - 1 && (n & 63) != 0) word &= (1L << (n & 63)) - 1;
+            return word;
+        }
+
+        /** Потік простих у [start, end] без накопичення: у пам'яті лише поточний сегмент. */
+        LongStream primes(long start, long end, boolean parallel) {
+            if (end > limit) throw new IllegalArgumentException("end > limit: " + end + " > " + limit);
+            return StreamSupport.longStream(new PrimeSpliterator(this, start, end), parallel);
+        }
+    }
+
+    /**
+     * Spliterator простих чисел поверх сегментів решета.
+     * Працює "на витяг": наступний сегмент просіюється лише коли споживач дочитав попередній,
+     * тож виробник ніколи не випереджає споживача (природний backpressure), а пам'ять -
+     * один бітсет сегмента на кожен Spliterator. trySplit ділить ще не просіяну частину
+     * по межах сегментів, тому потік можна споживати паралельно.
+     */
+    static class PrimeSpliterator implements Spliterator.OfLong {
+        private final SegmentedSieve sieve;
+        private long end;
+        private long nextLow;       // початок ще не просіяної частини (непарне)
+        private boolean emitTwo;    // чи ще треба видати 2
+
+        private long[] bits = new long[SegmentedSieve.SEGMENT_BITS / 64];
+        private long segLow;
+        private int n, words, w;    // поточний сегмент та індекс наступного слова
+        private long word;          // біти простих у поточному слові, що ще не видані
+
+        PrimeSpliterator(SegmentedSieve sieve, long start, long end) {
+            this.sieve = sieve;
+            this.end = end;
+            this.emitTwo = start <= 2 && end >= 2;
+            long lo = Math.max(start, 3);
+            this.nextLow = (lo & 1) == 0 ? lo + 1 : lo;
+        }
+
+        // Переходить до наступного сегмента; false - якщо діапазон вичерпано
+        private boolean loadNextSegment() {
+            if (nextLow > end) return false;
+            segLow = nextLow;
+            long segHigh = Math.min(end, segLow + SegmentedSieve.SEGMENT_SPAN - 1);
+            n = (int) ((segHigh - segLow) / 2) + 1;
+            words = sieve.markSegment(bits, segLow, segHigh, n);
+            w = 0;
+            word = 0;
+            nextLow = segLow + SegmentedSieve.SEGMENT_SPAN;
+            return true;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (emitTwo) {
+                emitTwo = false;
+                action.accept(2);
+                return true;
+            }
+            while (word == 0) {
+                if (w < words) word = SegmentedSieve.primeBits(bits, w++, words, n);
+                else if (!loadNextSegment()) return false;
+            }
+            int b = Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            action.accept(segLow + 2L * (((long) (w - 1) << 6) + b));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            if (emitTwo) {
+                emitTwo = false;
+                action.accept(2);
+            }
+            do {
+                while (true) {
+                    while (word != 0) {
+                        int b = Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        action.accept(segLow + 2L * (((long) (w - 1) << 6) + b));
+                    }
+                    if (w >= words) break;
+                    word = SegmentedSieve.primeBits(bits, w++, words, n);
+                }
+            } while (loadNextSegment());
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long segments = (end - nextLow) / SegmentedSieve.SEGMENT_SPAN;
+            if (segments < 2) return null;
+            long mid = nextLow + (segments / 2) * SegmentedSieve.SEGMENT_SPAN;
+
+            // префікс забирає поточний (частково прочитаний) сегмент і [nextLow, mid - 1]
+            PrimeSpliterator prefix = new PrimeSpliterator(sieve, nextLow, mid - 1);
+            long[] tmp = prefix.bits;
+            prefix.bits = bits;
+            prefix.emitTwo = emitTwo;
+            prefix.segLow = segLow;
+            prefix.n = n;
+            prefix.words = words;
+            prefix.w = w;
+            prefix.word = word;
+
+            bits = tmp;
+            emitTwo = false;
+            nextLow = mid;
+            words = w = 0;
+            word = 0;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // наближення pi(x) ≈ x / ln x; точний розмір невідомий без просіювання
+            return Math.max(0, (long) (approxPi(end) - approxPi(nextLow))) + Long.bitCount(word);
+        }
+
+        private static double approxPi(long x) {
+            return x < 3 ? 0 : x / Math.log(x);
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null; // природний порядок
+        }
+    }
+
+    /**
+     * Компактний бінарний файл простих чисел.
+     * Заголовок: MAGIC(int) | start(long) | end(long) | count(long).
+     * Далі varint-послідовність: перше просте - як є, потім для кожного наступного
+     * (gap / 2), бо всі проміжки після 2 парні (для пари 2 -> 3 пишеться 0).
+     * Більшість проміжків вміщується в 1 байт, тобто ~1 байт на просте число.
+     */
+    static class PrimeFile {
+        static final int MAGIC = 0x50524D31; // "PRM1"
+        static final int HEADER_BYTES = 4 + 8 + 8 + 8;
+        // один чанк кодування = 16 сегментів решета (~8.4 млн чисел)
+        static final long CHUNK_SPAN = 16 * SegmentedSieve.SEGMENT_SPAN;
+        private static final int IO_BUFFER = 1 << 20;
+
+        // Закодований чанк: проміжки після першого простого + межі для зшивання з сусідами
+        private static class EncodedChunk {
+            long first = -1, last = -1, count;
+            byte[] data = new byte[1 << 16];
+            int size;
+
+            void put(long prime) {
+                if (first < 0) first = prime;
+                else {
+                    if (data.length - size < 10) data = Arrays.copyOf(data, data.length * 2);
+                    size = putVarint(data, size, gapCode(last, prime));
+                }
+                last = prime;
+                count++;
+            }
+        }
+
+        static long gapCode(long prev, long next) {
+            return prev == 2 ? 0 : (next - prev) >>> 1;
+        }
+
+        static long decodeGap(long prev, long code) {
+            return prev == 2 ? 3 : prev + (code << 1);
+        }
+
+        static int putVarint(byte[] dst, int pos, long v) {
+            while ((v & ~0x7FL) != 0) {
+                dst[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            dst[pos++] = (byte) v;
+            return pos;
+        }
+
+        /**
+         * Записує прості з [start, end] у файл. Чанки просіюються та кодуються паралельно
+         * у pool, а записуються строго по порядку; у польоті не більше ніж 2 * parallelism
+         * чанків, тож пам'ять обмежена незалежно від розміру діапазону.
+         * Повертає кількість записаних простих.
+         */
+        static long write(Path file, SegmentedSieve sieve, long start, long end, ForkJoinPool pool) throws IOException {
+            int window = Math.max(2, pool.getParallelism() * 2);
+            ArrayDeque<Future<EncodedChunk>> inFlight = new ArrayDeque<>();
+            ByteBuffer out = ByteBuffer.allocateDirect(IO_BUFFER);
+            byte[] head = new byte[10];
+            long count = 0, prev = -1;
+            long nextChunk = start;
+
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                out.putInt(MAGIC).putLong(start).putLong(end).putLong(0);
+
+                while (nextChunk <= end || !inFlight.isEmpty()) {
+                    while (nextChunk <= end && inFlight.size() < window) {
+                        long lo = nextChunk, hi = Math.min(end, lo + CHUNK_SPAN - 1);
+                        inFlight.add(pool.submit(() -> encode(sieve, lo, hi)));
+                        nextChunk = hi + 1;
+                    }
+
+                    EncodedChunk c = join(inFlight.poll());
+                    if (c.count == 0) continue;
+
+                    int headLen = putVarint(head, 0, prev < 0 ? c.first : gapCode(prev, c.first));
+                    out = put(ch, out, head, headLen);
+                    out = put(ch, out, c.data, c.size);
+                    prev = c.last;
+                    count += c.count;
+                }
+
+                out.flip();
+                while (out.hasRemaining()) ch.write(out);
+
+                ByteBuffer countBuf = ByteBuffer.allocate(8).putLong(0, count);
+                ch.write(countBuf, HEADER_BYTES - 8);
+            }
+            return count;
+        }
+
+        private static EncodedChunk encode(SegmentedSieve sieve, long lo, long hi) {
+            EncodedChunk c = new EncodedChunk();
+            new PrimeSpliterator(sieve, lo, hi).forEachRemaining((LongConsumer) c::put);
+            return c;
+        }
+
+        private static EncodedChunk join(Future<EncodedChunk> f) throws IOException {
+            try {
+                return f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Запис простих чисел перервано");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        // Дописує байти у буфер, скидаючи його у канал при заповненні
+        private static ByteBuffer put(FileChannel ch, ByteBuffer out, byte[] src, int len) throws IOException {
+            int off = 0;
+            while (off < len) {
+                if (!out.hasRemaining()) {
+                    out.flip();
+                    while (out.hasRemaining()) ch.write(out);
+                    out.clear();
+                }
+                int k = Math.min(out.remaining(), len - off);
+                out.put(src, off, k);
+                off += k;
+            }
+            return out;
+        }
+
+        /** Послідовне читання файлу як LongStream (потік треба закрити - він тримає файл). */
+        static LongStream read(Path file) throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER));
+            try {
+                if (in.readInt() != MAGIC) throw new IOException("Невірний формат файлу " + file);
+                in.readLong(); // start
+                in.readLong(); // end
+                long count = in.readLong();
+
+                PrimitiveIterator.OfLong it = new PrimitiveIterator.OfLong() {
+                    long left = count, prev = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return left > 0;
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        if (left-- <= 0) throw new NoSuchElementException();
+                        try {
+                            long v = readVarint(in);
+                            prev = prev < 0 ? v : decodeGap(prev, v);
+                            return prev;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+                return StreamSupport.longStream(Spliterators.spliterator(it, count,
+                                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false)
+                        .onClose(() -> {
+                            try {
+                                in.close();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        private static long readVarint(DataInputStream in) throws IOException {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.read();
+                if (b < 0) throw new EOFException();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
         }
-        return true;
     }
 
     // Асинхронний аналіз для Завдання 2
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Бенчмарк підрахунку простих чисел з Практичної №5 (у стилі JMH).
+ *
+ * Warm-up ітерації, потім виміряні; результат кожного виклику йде у "blackhole";
+ * підсумок пишеться у JSON у форматі JMH (score, scoreError, перцентилі, rawData).
+ *
+ * Запуск:
+ *   java PrimeBenchmark --ranges 1000000,10000000 --threads 1,8 --warmup 5 --iterations 10 --out PrimeBenchmark.json
+ */
+public class PrimeBenchmark {
+
+    private static volatile long blackhole;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Очікувався параметр --name, отримано: " + args[i]);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Немає значення для параметра " + args[i]);
+            opts.put(args[i].substring(2), args[i + 1]);
+        }
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        long[] ranges = Arrays.stream(opts.getOrDefault("ranges", "1000000,10000000").split(","))
+                .mapToLong(v -> Long.parseLong(v.trim())).toArray();
+        int[] threads = Arrays.stream(opts.getOrDefault("threads", cpus == 1 ? "1" : "1," + cpus).split(","))
+                .mapToInt(v -> Integer.parseInt(v.trim())).toArray();
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "5"));
+        int iterations = Integer.parseInt(opts.getOrDefault("iterations", "10"));
+        if (warmup < 0) throw new IllegalArgumentException("Кількість warm-up ітерацій має бути ≥ 0: " + warmup);
+        if (iterations < 1) throw new IllegalArgumentException("Кількість виміряних ітерацій має бути ≥ 1: " + iterations);
+        Path out = Paths.get(opts.getOrDefault("out", "PrimeBenchmark.json"));
+
+        List<String[]> names = new ArrayList<>();   // {benchmark, rangeEnd, threads}
+        List<double[]> samples = new ArrayList<>();
+
+        for (long end : ranges) {
+            double[] s = measure(warmup, iterations, () -> blackhole += PracticalWork5.countPrimes(1, end));
+            names.add(new String[]{"PracticalWork5.countPrimes", String.valueOf(end), "1"});
+            samples.add(s);
+            print(names.get(names.size() - 1), s);
+
+            PracticalWork5.SegmentedSieve sieve = new PracticalWork5.SegmentedSieve(end);
+            for (int t : threads) {
+                ForkJoinPool pool = new ForkJoinPool(t);
+                try {
+                    s = measure(warmup, iterations, () -> blackhole += pool.invoke(
+                            PracticalWork5.PrimeRangeTask.root(sieve, 1, end, t, new ConcurrentLinkedQueue<>())).count);
+                } finally {
+                    pool.shutdown();
+                }
+                names.add(new String[]{"PracticalWork5.PrimeRangeTask", String.valueOf(end), String.valueOf(t)});
+                samples.add(s);
+                print(names.get(names.size() - 1), s);
+            }
+        }
+
+        writeJson(out, names, samples, warmup, iterations);
+        System.out.println("Результати записано у " + out);
+    }
+
+    static double[] measure(int warmup, int iterations, Runnable body) {
+        for (int i = 0; i < warmup; i++) body.run();
+        double[] samples = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            System.gc();
+            long t0 = System.nanoTime();
+            body.run();
+            samples[i] = (System.nanoTime() - t0) / 1_000_000.0;
+        }
+        return samples;
+    }
+
+    private static double mean(double[] s) {
+        return Arrays.stream(s).average().orElse(Double.NaN);
+    }
+
+    // Півширина довірчого інтервалу 99.9% (нормальне наближення, як scoreError у JMH)
+    private static double error(double[] s) {
+        if (s.length < 2) return Double.NaN;
+        double m = mean(s), ss = 0;
+        for (double v : s) ss += (v - m) * (v - m);
+        return 3.291 * Math.sqrt(ss / (s.length - 1)) / Math.sqrt(s.length);
+    }
+
+    private static double percentile(double[] s, double p) {
+        double[] sorted = s.clone();
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+
+    private static void print(String[] name, double[] s) {
+        System.out.printf("%-32s end=%-12s threads=%-4s %10.3f ± %8.3f ms/op%n", name[0], name[1], name[2], mean(s), error(s));
+    }
+
+    private static void writeJson(Path file, List<String[]> names, List<double[]> samples, int warmup, int iterations) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file))) {
+            pw.println("[");
+            for (int i = 0; i < names.size(); i++) {
+                String[] n = names.get(i);
+                double[] s = samples.get(i);
+                double err = error(s);
+                pw.println("    {");
+                pw.printf("        \"benchmark\" : \"%s\",%n", n[0]);
+                pw.println("        \"mode\" : \"avgt\",");
+                pw.printf("        \"threads\" : %s,%n", n[2]);
+                pw.printf("        \"warmupIterations\" : %d,%n", warmup);
+                pw.printf("        \"measurementIterations\" : %d,%n", iterations);
+                pw.printf("        \"params\" : { \"rangeEnd\" : \"%s\", \"threads\" : \"%s\" },%n", n[1], n[2]);
+                pw.println("        \"primaryMetric\" : {");
+                pw.printf("            \"score\" : %s,%n", number(mean(s)));
+                pw.printf("            \"scoreError\" : %s,%n", number(err));
+                pw.println("            \"scoreUnit\" : \"ms/op\",");
+                pw.printf("            \"scorePercentiles\" : { \"0.0\" : %s, \"50.0\" : %s, \"90.0\" : %s, \"99.0\" : %s, \"100.0\" : %s },%n",
+                        number(percentile(s, 0)), number(percentile(s, 50)), number(percentile(s, 90)), number(percentile(s, 99)), number(percentile(s, 100)));
+                StringJoiner raw = new StringJoiner(", ", "[ [ ", " ] ]");
+                for (double v : s) raw.add(number(v));
+                pw.printf("            \"rawData\" : %s%n", raw);
+                pw.println("        }");
+                pw.println(i < names.size() - 1 ? "    }," : "    }");
+            }
+            pw.println("]");
+        }
+    }
+
+    // NaN і нескінченності - рядком, як у JMH: голі NaN/Infinity у JSON недійсні
+    private static String number(double v) {
+        return Double.isFinite(v) ? String.format(Locale.ROOT, "%.6f", v) : "\"" + v + "\"";
+    }
+}